@@ -55,7 +55,7 @@ public class MyClassUtils {
 								String className=jarEntryName.substring(0, jarEntryName.lastIndexOf(".")).replaceAll("/",".");//取到类名
 
 								if(isRecursive|| className.substring(0,className.lastIndexOf(".")).equals(packageName)){
-									classList.add(Class.forName(className));
+									loadClass(classList, className);
 								}
 							}
 
@@ -94,6 +94,17 @@ public class MyClassUtils {
 	}
 
 
+	/**
+	 * Loads without initializing and skips a class built on a missing optional library, so that it cannot fail the scan.
+	 */
+	private static void loadClass(List<Class<?>> classList, String className) throws ClassNotFoundException {
+		try {
+			classList.add(Class.forName(className, false, Thread.currentThread().getContextClassLoader()));
+		} catch (LinkageError e) {
+			// e.g. a subclass of a class from that library
+		}
+	}
+
 	/**
 	 * 将对应包名下的所有.class文件加入到classList集合中
 	 * @param classList 存放classList文件的集合
@@ -115,7 +126,7 @@ public class MyClassUtils {
 				if(file.isFile()){//如果取到的是文件
 					//取到对应的类名,这里的类名是权限定名
 					String className=getClassName(packageName,fileName);
-					classList.add(Class.forName(className));
+					loadClass(classList, className);
 				}else{
 					if(isRecursive){
 						///D:/SXTJava/annotation/bin/annotation+包名（fileName:test）
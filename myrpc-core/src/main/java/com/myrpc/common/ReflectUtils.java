@@ -1,5 +1,7 @@
 package com.myrpc.common;
 
+import java.lang.reflect.Method;
+
 import static com.myrpc.common.Preconditions.checkNotNull;
 
 public final class ReflectUtils {
@@ -35,4 +37,26 @@ public final class ReflectUtils {
 		}
 		return null;
 	}
+
+	/**
+	 * e.g. com.myrpc.demo.api.DemoService#sayHello(java.lang.String)
+	 */
+	public static String getMethodKey(String interfaceName, Method method) {
+		checkNotNull(method, "method");
+
+		return getMethodKey(interfaceName, method.getName(), method.getParameterTypes());
+	}
+
+	public static String getMethodKey(String interfaceName, String methodName, Class<?>[] parameterTypes) {
+		StringBuilder buf = new StringBuilder(interfaceName).append('#').append(methodName).append('(');
+		if (parameterTypes != null) {
+			for (int i = 0; i < parameterTypes.length; i++) {
+				if (i > 0) {
+					buf.append(',');
+				}
+				buf.append(parameterTypes[i].getName());
+			}
+		}
+		return buf.append(')').toString();
+	}
 }
@@ -24,6 +24,8 @@ public class RpcConstants {
 	public final static String CLUSTER_KEY = "cluster";
 	public final static String TIMEOUT_KEY = "timeout";
 	public final static String CONNECTTIMEOUT_KEY = "connecttimeout";
+	public final static String CONNECTIONS_KEY = "connections";
+	public final static String IDLETIMEOUT_KEY = "idletimeout";
 	public static final String PROXY_KEY = "proxy";
 	public final static String RETRIES_KEY = "retries";
 	public static final String CATEGORY_KEY = "category";
@@ -39,9 +41,23 @@ public class RpcConstants {
 	public final static String PORT_KEY = "port";
 	public static final String TRANSPORTER_KEY = "transporter";
 	public final static String IOTHREADS_KEY = "iothreads";
+	public final static String IOENGINE_KEY = "ioengine";
+	public final static String ACCEPTORS_KEY = "acceptors";
 	public final static String THREADPOOL_KEY = "threadpool";
 	public final static String THREADS_KEY = "threads";
+	public final static String SERVICE_THREADPOOL_KEY = "service.threadpool";
+	public final static String SERVICE_THREADS_KEY = "service.threads";
+	public final static String EXECUTES_KEY = "executes";
+	public final static String SERVICE_EXECUTES_KEY = "service.executes";
 	public final static String HEARTBEAT_KEY = "heartbeat";
+	public final static String WRITEBATCH_KEY = "writebatch";
+	public final static String WRITEBATCHBYTES_KEY = "writebatchbytes";
+	public final static String WRITEBACKLOG_KEY = "writebacklog";
+	public final static String READBACKLOG_KEY = "readbacklog";
+	public final static String CODELTARGET_KEY = "codeltarget";
+	public final static String CODELINTERVAL_KEY = "codelinterval";
+	public final static String COMPRESSION_KEY = "compression";
+	public final static String COMPRESSTHRESHOLD_KEY = "compressthreshold";
 
 	public final static String PROVIDER = "provider";
 	public final static String CONSUMER = "consumer";
@@ -62,11 +78,23 @@ public class RpcConstants {
 
 	public final static String DEFAULT_PROTOCOL = "myrpc";
 	public final static String DEFAULT_TRANSPORTER = "netty";
+	public final static int DEFAULT_CONNECTIONS = 1;
+	public final static int DEFAULT_IDLETIMEOUT = 60000;
 	public final static int DEFAULT_IOTHREADS = Math.max(2, Runtime.getRuntime().availableProcessors()) * 2;
+	public final static int DEFAULT_CLIENT_IOTHREADS = Runtime.getRuntime().availableProcessors();
+	public final static String DEFAULT_IOENGINE = "auto";
+	public final static int DEFAULT_ACCEPTORS = Math.min(4, Runtime.getRuntime().availableProcessors());
 	public final static int DEFAULT_IOPORT = 2180;
 	public final static String DEFAULT_THREADPOOL = "fixed";
 	public final static int DEFAULT_THREADS = 200;
 	public final static int DEFAULT_HEARTBEAT = 30;
+	public final static int DEFAULT_WRITEBATCH = 128;
+	public final static int DEFAULT_WRITEBATCHBYTES = 64 * 1024;
+	public final static int DEFAULT_WRITEBACKLOG = 65536;
+	public final static int DEFAULT_READBACKLOG = 1024;
+	public final static int DEFAULT_CODELTARGET = 5;
+	public final static int DEFAULT_CODELINTERVAL = 100;
+	public final static int DEFAULT_COMPRESSTHRESHOLD = 2048;
 
 	public final static int DEFAULT_REGISTRY_TIMEOUT = 5000;
 	public final static int DEFAULT_REGISTRY_SESSIONTIMEOUT = 60000;
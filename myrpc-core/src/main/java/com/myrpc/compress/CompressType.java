@@ -0,0 +1,74 @@
+package com.myrpc.compress;
+
+import com.myrpc.common.RpcConstants;
+import com.myrpc.common.StringUtils;
+import com.myrpc.exception.MyRpcSerializeException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The id goes to the upper four bits of the frame flags, so there is room for fifteen codecs.
+ */
+public enum CompressType {
+
+	LZ4((byte) 1, "lz4"),
+
+	SNAPPY((byte) 2, "snappy"),
+
+	ZSTD((byte) 3, "zstd");
+
+	private final byte id;
+	private final String name;
+
+	CompressType(byte id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	public byte getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public static CompressType parse(String name) {
+		for (CompressType c : values()) {
+			if (c.name.equalsIgnoreCase(name)) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The codecs of a comma separated compression setting in its order, none for an empty one.
+	 */
+	public static List<CompressType> parseList(String names) {
+		List<CompressType> compressTypes = new ArrayList<>();
+		if (StringUtils.isEmpty(names)) {
+			return compressTypes;
+		}
+		for (String name : RpcConstants.COMMA_SPLIT_PATTERN.split(names.trim())) {
+			CompressType compressType = parse(name);
+			if (compressType == null) {
+				throw new MyRpcSerializeException("Unsupported compression " + name);
+			}
+			if (!compressTypes.contains(compressType)) {
+				compressTypes.add(compressType);
+			}
+		}
+		return compressTypes;
+	}
+
+	public static CompressType parse(byte id) {
+		for (CompressType c : values()) {
+			if (c.id == id) {
+				return c;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,22 @@
+package com.myrpc.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A block codec for frame bodies, registered under the name of its {@link CompressType}. The buffers handed in are direct.
+ */
+public interface Compressor {
+
+	int maxCompressedLength(int length);
+
+	/**
+	 * Compresses the remaining bytes of src to dst from its position, returns the compressed length.
+	 */
+	int compress(ByteBuffer src, ByteBuffer dst) throws IOException;
+
+	/**
+	 * Decompresses the remaining bytes of src to dst from its position, returns the decompressed length.
+	 */
+	int decompress(ByteBuffer src, ByteBuffer dst) throws IOException;
+}
@@ -0,0 +1,177 @@
+package com.myrpc.compress;
+
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.extension.Scope;
+import com.myrpc.metrics.Counter;
+import com.myrpc.metrics.MetricRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compresses frame bodies with one codec and counts what it does. A compressed body starts with the length of the raw one:
+ * <pre>
+ * +------------+------------------+
+ * | raw length | compressed block |
+ * |     4      |       ...        |
+ * +------------+------------------+
+ * </pre>
+ * Metrics under compress.&lt;name&gt; and decompress.&lt;name&gt;: frames, raw and compressed bytes, their ratio, and the cpu
+ * time of the codec in total and per frame. A body that does not get smaller goes out raw and counts as skipped, its bytes
+ * count on both sides so the ratio is that of what was actually sent.
+ */
+public final class FrameCompressor {
+
+	private static final int LENGTH_PREFIX = 4;
+	private static final FrameCompressor[] compressors = new FrameCompressor[16];
+	private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	private static final boolean cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+
+	private final CompressType type;
+	private final Compressor compressor;
+	private final Counter compressFrames;
+	private final Counter skippedFrames;
+	private final Counter compressRawBytes;
+	private final Counter compressedBytes;
+	private final Counter compressNanos;
+	private final Counter decompressFrames;
+	private final Counter decompressRawBytes;
+	private final Counter decompressedBytes;
+	private final Counter decompressNanos;
+
+	private FrameCompressor(CompressType type) {
+		this.type = type;
+		this.compressor = ExtensionLoader.getExtension(Compressor.class, type.getName(), Scope.SINGLETON);
+		if (compressor == null) {
+			throw new MyRpcSerializeException("Unsupported compression " + type.getName());
+		}
+		String prefix = "compress." + type.getName();
+		this.compressFrames = MetricRegistry.counter(prefix + ".frames");
+		this.skippedFrames = MetricRegistry.counter(prefix + ".skipped");
+		this.compressRawBytes = MetricRegistry.counter(prefix + ".bytes.raw");
+		this.compressedBytes = MetricRegistry.counter(prefix + ".bytes.compressed");
+		this.compressNanos = MetricRegistry.counter(prefix + ".cpu.nanos");
+		MetricRegistry.ratio(prefix + ".ratio", compressRawBytes, compressedBytes);
+		MetricRegistry.ratio(prefix + ".cpu.nanos.avg", compressNanos, compressFrames);
+		prefix = "decompress." + type.getName();
+		this.decompressFrames = MetricRegistry.counter(prefix + ".frames");
+		this.decompressRawBytes = MetricRegistry.counter(prefix + ".bytes.raw");
+		this.decompressedBytes = MetricRegistry.counter(prefix + ".bytes.compressed");
+		this.decompressNanos = MetricRegistry.counter(prefix + ".cpu.nanos");
+		MetricRegistry.ratio(prefix + ".ratio", decompressRawBytes, decompressedBytes);
+		MetricRegistry.ratio(prefix + ".cpu.nanos.avg", decompressNanos, decompressFrames);
+	}
+
+	public static FrameCompressor get(CompressType type) {
+		synchronized (compressors) {
+			FrameCompressor compressor = compressors[type.getId()];
+			if (compressor == null) {
+				compressor = new FrameCompressor(type);
+				compressors[type.getId()] = compressor;
+			}
+			return compressor;
+		}
+	}
+
+	public CompressType getType() {
+		return type;
+	}
+
+	/**
+	 * The readable bytes of body compressed, null when that does not make them smaller, the frame is then sent raw.
+	 */
+	public ByteBuf compress(ByteBufAllocator allocator, ByteBuf body) {
+		long start = cpuTime();
+		int length = body.readableBytes();
+		int maxLength = compressor.maxCompressedLength(length);
+		ByteBuf src = direct(allocator, body);
+		ByteBuf out = allocator.directBuffer(LENGTH_PREFIX + maxLength);
+		boolean compressed = false;
+		try {
+			out.writeInt(length);
+			int compressedLength = compressor.compress(src.nioBuffer(src.readerIndex(), length), out.nioBuffer(LENGTH_PREFIX, maxLength));
+			compressed = LENGTH_PREFIX + compressedLength < length;
+			compressFrames.inc();
+			compressRawBytes.inc(length);
+			if (compressed) {
+				out.writerIndex(LENGTH_PREFIX + compressedLength);
+				compressedBytes.inc(LENGTH_PREFIX + compressedLength);
+			} else {
+				skippedFrames.inc();
+				compressedBytes.inc(length);
+			}
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(type.getName() + " compress failed: " + e.getMessage(), e);
+		} finally {
+			if (src != body) {
+				src.release();
+			}
+			if (!compressed) {
+				out.release();
+			}
+			compressNanos.inc(cpuTime() - start);
+		}
+		return compressed ? out : null;
+	}
+
+	/**
+	 * Decompresses the readable bytes of a body from {@link #compress}, whose raw length must not exceed maxLength.
+	 */
+	public ByteBuf decompress(ByteBufAllocator allocator, ByteBuf body, int maxLength) {
+		if (body.readableBytes() < LENGTH_PREFIX) {
+			throw new MyRpcSerializeException("Truncated " + type.getName() + " body of " + body.readableBytes() + " bytes");
+		}
+		long start = cpuTime();
+		int compressedLength = body.readableBytes();
+		int length = body.readInt();
+		if (length < 0 || length > maxLength) {
+			throw new MyRpcSerializeException("Illegal raw length " + length + " of " + type.getName() + " body");
+		}
+		ByteBuf src = direct(allocator, body);
+		ByteBuf out = allocator.directBuffer(length, length);
+		boolean decompressed = false;
+		try {
+			int decompressedLength = compressor.decompress(src.nioBuffer(src.readerIndex(), src.readableBytes()), out.nioBuffer(0, length));
+			if (decompressedLength != length) {
+				throw new MyRpcSerializeException(type.getName() + " body decompressed to " + decompressedLength + " bytes, expected " + length);
+			}
+			out.writerIndex(length);
+			decompressed = true;
+			decompressFrames.inc();
+			decompressRawBytes.inc(length);
+			decompressedBytes.inc(compressedLength);
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(type.getName() + " decompress failed: " + e.getMessage(), e);
+		} finally {
+			if (src != body) {
+				src.release();
+			}
+			if (!decompressed) {
+				out.release();
+			}
+			decompressNanos.inc(cpuTime() - start);
+		}
+		body.skipBytes(body.readableBytes());
+		return out;
+	}
+
+	/**
+	 * The codecs take direct memory in one piece, anything else is copied.
+	 */
+	private static ByteBuf direct(ByteBufAllocator allocator, ByteBuf buf) {
+		if (buf.isDirect() && buf.nioBufferCount() == 1) {
+			return buf;
+		}
+		ByteBuf copy = allocator.directBuffer(buf.readableBytes());
+		copy.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+		return copy;
+	}
+
+	private static long cpuTime() {
+		return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+	}
+}
@@ -0,0 +1,44 @@
+package com.myrpc.compress;
+
+import com.myrpc.extension.RpcComponent;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The fastest of the codecs and the weakest, for bodies that are large but cheap to send.
+ */
+@RpcComponent(name = "lz4", requires = "net.jpountz.lz4.LZ4Factory")
+public class Lz4Compressor implements Compressor {
+
+	private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+	// the safe one, the length in a frame from the network is not trusted
+	private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return compressor.maxCompressedLength(length);
+	}
+
+	@Override
+	public int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+		try {
+			return compressor.compress(src, src.position(), src.remaining(), dst, dst.position(), dst.remaining());
+		} catch (LZ4Exception e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+		try {
+			return decompressor.decompress(src, src.position(), src.remaining(), dst, dst.position(), dst.remaining());
+		} catch (LZ4Exception e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+}
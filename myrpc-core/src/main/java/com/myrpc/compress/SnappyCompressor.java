@@ -0,0 +1,30 @@
+package com.myrpc.compress;
+
+import com.myrpc.extension.RpcComponent;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+@RpcComponent(name = "snappy", requires = "org.xerial.snappy.Snappy")
+public class SnappyCompressor implements Compressor {
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return Snappy.maxCompressedLength(length);
+	}
+
+	@Override
+	public int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+		return Snappy.compress(src, dst);
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+		// checks the length in the block header before writing, unlike the codec itself
+		if (Snappy.uncompressedLength(src) > dst.remaining()) {
+			throw new IOException("Snappy block larger than " + dst.remaining() + " bytes");
+		}
+		return Snappy.uncompress(src, dst);
+	}
+}
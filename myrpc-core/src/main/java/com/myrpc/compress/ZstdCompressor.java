@@ -0,0 +1,40 @@
+package com.myrpc.compress;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+import com.myrpc.extension.RpcComponent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The best ratio at a few times the cpu of lz4, for links where bandwidth costs more than cpu.
+ */
+@RpcComponent(name = "zstd", requires = "com.github.luben.zstd.Zstd")
+public class ZstdCompressor implements Compressor {
+
+	private static final int LEVEL = 3;
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return (int) Zstd.compressBound(length);
+	}
+
+	@Override
+	public int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+		try {
+			return Zstd.compress(dst, src, LEVEL);
+		} catch (ZstdException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+		try {
+			return Zstd.decompress(dst, src);
+		} catch (ZstdException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.metrics.Counter;
+import com.myrpc.metrics.Gauge;
+import com.myrpc.metrics.MetricRegistry;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the requests of one service or method that are executing or queued for execution, so a slow one can not take
+ * the whole pool. Requests over the limit are rejected before they reach an executor.
+ */
+public class Bulkhead {
+
+	private final String name;
+	private final int limit;
+	private final Semaphore permits;
+	private final Counter rejected;
+
+	public Bulkhead(String name, final int limit) {
+		this.name = name;
+		this.limit = limit;
+		this.permits = new Semaphore(limit);
+		this.rejected = MetricRegistry.counter("bulkhead." + name + ".rejected");
+		// a republished service gets new bulkheads, the gauges follow them
+		MetricRegistry.replaceGauge("bulkhead." + name + ".active", new Gauge() {
+			@Override
+			public Number value() {
+				return limit - permits.availablePermits();
+			}
+		});
+		MetricRegistry.replaceGauge("bulkhead." + name + ".limit", new Gauge() {
+			@Override
+			public Number value() {
+				return limit;
+			}
+		});
+	}
+
+	public boolean tryAcquire() {
+		if (permits.tryAcquire()) {
+			return true;
+		}
+		rejected.inc();
+		return false;
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	@Override
+	public String toString() {
+		return name + "[limit=" + limit + ", active=" + (limit - permits.availablePermits()) + "]";
+	}
+}
@@ -0,0 +1,18 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.extension.RpcComponent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@RpcComponent(name = "cached")
+public class CachedThreadPool implements ThreadPool {
+
+	@Override
+	public Executor getExecutor(String name, int threads) {
+		return new ThreadPoolExecutor(threads, Integer.MAX_VALUE, 60 * 1000, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(),
+				NamedThreadFactory.newThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+	}
+}
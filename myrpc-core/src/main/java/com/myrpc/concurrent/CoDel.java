@@ -0,0 +1,47 @@
+package com.myrpc.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controlled delay on the queue of one pool. If no request got through with less than {@code target} queueing during a
+ * whole {@code interval}, the queue is standing rather than absorbing a burst, and requests that waited longer than
+ * twice the target are shed until it drains.
+ */
+public class CoDel {
+
+	private final long targetNanos;
+	private final long intervalNanos;
+	private final AtomicLong intervalEnd;
+	private final AtomicLong minDelay = new AtomicLong(Long.MAX_VALUE);
+	private volatile boolean overloaded;
+
+	public CoDel(long targetMillis, long intervalMillis) {
+		this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.intervalEnd = new AtomicLong(System.nanoTime() + intervalNanos);
+	}
+
+	/**
+	 * Called when a request leaves the queue.
+	 *
+	 * @param delayNanos how long it was queued
+	 * @return true to shed it
+	 */
+	public boolean shouldDrop(long delayNanos) {
+		long now = System.nanoTime();
+		long end = intervalEnd.get();
+		if (now - end > 0 && intervalEnd.compareAndSet(end, now + intervalNanos)) {
+			overloaded = minDelay.getAndSet(delayNanos) > targetNanos;
+		} else {
+			long min;
+			while (delayNanos < (min = minDelay.get()) && !minDelay.compareAndSet(min, delayNanos)) {
+			}
+		}
+		return overloaded && delayNanos > 2 * targetNanos;
+	}
+
+	public boolean isOverloaded() {
+		return overloaded;
+	}
+}
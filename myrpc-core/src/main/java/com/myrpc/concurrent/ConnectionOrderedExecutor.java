@@ -0,0 +1,34 @@
+package com.myrpc.concurrent;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Marks a pool whose tasks must be ordered per connection, the transport asks it for one
+ * {@link SerialExecutor} per connection and submits through that.
+ */
+public class ConnectionOrderedExecutor implements Executor {
+
+	private final Executor delegate;
+
+	public ConnectionOrderedExecutor(Executor delegate) {
+		this.delegate = delegate;
+	}
+
+	Executor getDelegate() {
+		return delegate;
+	}
+
+	public Executor newSerialExecutor() {
+		return new SerialExecutor(delegate);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		delegate.execute(command);
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+}
@@ -0,0 +1,18 @@
+package com.myrpc.concurrent;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.myrpc.extension.RpcComponent;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the method on the netty worker which decoded the request, only for cheap methods that never block.
+ */
+@RpcComponent(name = "direct")
+public class DirectThreadPool implements ThreadPool {
+
+	@Override
+	public Executor getExecutor(String name, int threads) {
+		return MoreExecutors.directExecutor();
+	}
+}
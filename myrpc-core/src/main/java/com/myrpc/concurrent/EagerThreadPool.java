@@ -0,0 +1,22 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.extension.RpcComponent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grows to {@code threads} threads before it starts queueing, the plain fixed pool queues first.
+ */
+@RpcComponent(name = "eager")
+public class EagerThreadPool implements ThreadPool {
+
+	@Override
+	public Executor getExecutor(String name, int threads) {
+		TaskQueue taskQueue = new TaskQueue(1024);
+		EagerThreadPoolExecutor executor = new EagerThreadPoolExecutor(0, threads, 60 * 1000, TimeUnit.MILLISECONDS, taskQueue,
+				NamedThreadFactory.newThreadFactory(name));
+		taskQueue.setExecutor(executor);
+		return executor;
+	}
+}
@@ -0,0 +1,52 @@
+package com.myrpc.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class EagerThreadPoolExecutor extends ThreadPoolExecutor {
+
+	private final AtomicInteger submittedTaskCount = new AtomicInteger();
+
+	EagerThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, TaskQueue workQueue,
+			ThreadFactory threadFactory) {
+		super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, new AbortPolicy());
+	}
+
+	int getSubmittedTaskCount() {
+		return submittedTaskCount.get();
+	}
+
+	@Override
+	protected void afterExecute(Runnable r, Throwable t) {
+		submittedTaskCount.decrementAndGet();
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (command == null) {
+			throw new NullPointerException();
+		}
+		submittedTaskCount.incrementAndGet();
+		try {
+			super.execute(command);
+		} catch (RejectedExecutionException e) {
+			TaskQueue queue = (TaskQueue) getQueue();
+			try {
+				if (!queue.retryOffer(command, 0, TimeUnit.MILLISECONDS)) {
+					submittedTaskCount.decrementAndGet();
+					throw new RejectedExecutionException("Queue capacity is full.", e);
+				}
+			} catch (InterruptedException x) {
+				submittedTaskCount.decrementAndGet();
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(x);
+			}
+		} catch (RuntimeException e) {
+			submittedTaskCount.decrementAndGet();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.exception.MyRpcRpcException;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.metrics.Counter;
+import com.myrpc.metrics.Gauge;
+import com.myrpc.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Provider executors by name and settings, so every acceptor, service or method asking for the same pool shares it.
+ */
+public final class ExecutorRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExecutorRepository.class);
+	private static final ConcurrentMap<String, Executor> executors = new ConcurrentHashMap<>();
+
+	private ExecutorRepository() {
+	}
+
+	public static Executor getExecutor(String name, String threadpool, int threads) {
+		String key = name + ":" + threadpool + ":" + threads;
+		Executor executor = executors.get(key);
+		if (executor != null) {
+			return executor;
+		}
+		synchronized (executors) {
+			executor = executors.get(key);
+			if (executor == null) {
+				ThreadPool threadPool = ExtensionLoader.getExtension(ThreadPool.class, threadpool);
+				if (threadPool == null) {
+					throw new MyRpcRpcException("Unsupported threadpool " + threadpool);
+				}
+				logger.info("ThreadPool Core[name:" + name + ", threads:" + threads + ", threadpool:" + threadpool + "]");
+				executor = metered(name, threadPool.getExecutor(name, threads));
+				executors.put(key, executor);
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Saturation of a pool: busy threads, queued tasks and rejections, under threadpool.name.
+	 */
+	private static Executor metered(String name, final Executor executor) {
+		Executor pool = executor instanceof ConnectionOrderedExecutor ? ((ConnectionOrderedExecutor) executor).getDelegate() : executor;
+		if (!(pool instanceof ThreadPoolExecutor)) {
+			return executor;
+		}
+		final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) pool;
+		final String prefix = "threadpool." + name;
+		MetricRegistry.gauge(prefix + ".active", new Gauge() {
+			@Override
+			public Number value() {
+				return threadPoolExecutor.getActiveCount();
+			}
+		});
+		MetricRegistry.gauge(prefix + ".size", new Gauge() {
+			@Override
+			public Number value() {
+				return threadPoolExecutor.getPoolSize();
+			}
+		});
+		MetricRegistry.gauge(prefix + ".queue", new Gauge() {
+			@Override
+			public Number value() {
+				return threadPoolExecutor.getQueue().size();
+			}
+		});
+		if (executor != pool) {
+			// the per connection backlog is unbounded, nothing is rejected short of shutdown
+			return executor;
+		}
+		final Counter rejected = MetricRegistry.counter(prefix + ".rejected");
+		return new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				try {
+					executor.execute(command);
+				} catch (RejectedExecutionException e) {
+					rejected.inc();
+					throw e;
+				}
+			}
+
+			@Override
+			public String toString() {
+				return executor.toString();
+			}
+		};
+	}
+}
@@ -0,0 +1,18 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.extension.RpcComponent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@RpcComponent(name = "fixed")
+public class FixedThreadPool implements ThreadPool {
+
+	@Override
+	public Executor getExecutor(String name, int threads) {
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(1024),
+				NamedThreadFactory.newThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+	}
+}
@@ -0,0 +1,15 @@
+package com.myrpc.concurrent;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ThreadFactory;
+
+final class NamedThreadFactory {
+
+	private NamedThreadFactory() {
+	}
+
+	static ThreadFactory newThreadFactory(String name) {
+		return new ThreadFactoryBuilder().setNameFormat(name + "-%d").build();
+	}
+}
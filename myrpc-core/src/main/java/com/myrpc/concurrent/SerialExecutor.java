@@ -0,0 +1,63 @@
+package com.myrpc.concurrent;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks one at a time in submission order on a shared delegate, without holding a thread while idle.
+ */
+public class SerialExecutor implements Executor, Runnable {
+
+	private static final int MAX_TASKS_PER_RUN = 64;
+	private final Executor delegate;
+	private final Queue<Runnable> tasks = PlatformDependent.newMpscQueue();
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	public SerialExecutor(Executor delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		tasks.offer(command);
+		schedule();
+	}
+
+	private void schedule() {
+		if (running.compareAndSet(false, true)) {
+			try {
+				delegate.execute(this);
+			} catch (RejectedExecutionException e) {
+				// only when the delegate is shut down, nothing queued here will run any more
+				running.set(false);
+				tasks.clear();
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			// bounded so that one busy connection gives the thread back to the others now and then
+			Runnable task;
+			for (int i = 0; i < MAX_TASKS_PER_RUN && (task = tasks.poll()) != null; i++) {
+				task.run();
+			}
+		} finally {
+			running.set(false);
+			if (!tasks.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+}
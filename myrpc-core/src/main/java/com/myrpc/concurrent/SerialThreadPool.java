@@ -0,0 +1,24 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.extension.RpcComponent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests of one connection run one after another in arrival order, different connections run in parallel
+ * on a shared fixed pool.
+ */
+@RpcComponent(name = "serial")
+public class SerialThreadPool implements ThreadPool {
+
+	@Override
+	public Executor getExecutor(String name, int threads) {
+		// at most one task per connection waits here, the backlog is kept by each connection's SerialExecutor
+		return new ConnectionOrderedExecutor(
+				new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+						NamedThreadFactory.newThreadFactory(name)));
+	}
+}
@@ -0,0 +1,44 @@
+package com.myrpc.concurrent;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refuses tasks while the pool can still start threads, which makes {@link EagerThreadPoolExecutor} add a thread instead.
+ */
+class TaskQueue extends LinkedBlockingQueue<Runnable> {
+
+	private static final long serialVersionUID = -2635853580887179627L;
+	private transient EagerThreadPoolExecutor executor;
+
+	TaskQueue(int capacity) {
+		super(capacity);
+	}
+
+	void setExecutor(EagerThreadPoolExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public boolean offer(Runnable runnable) {
+		// idle threads are waiting in take(), hand the task to them
+		if (executor.getSubmittedTaskCount() <= executor.getPoolSize()) {
+			return super.offer(runnable);
+		}
+		if (executor.getPoolSize() < executor.getMaximumPoolSize()) {
+			return false;
+		}
+		return super.offer(runnable);
+	}
+
+	/**
+	 * Second chance after the executor rejected the task, a thread may have finished in between.
+	 */
+	boolean retryOffer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("Executor is shutdown");
+		}
+		return super.offer(runnable, timeout, unit);
+	}
+}
@@ -0,0 +1,15 @@
+package com.myrpc.concurrent;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Provider side thread model, selected by the "threadpool" setting of the protocol, a service or a method.
+ */
+public interface ThreadPool {
+
+	/**
+	 * @param name    prefix of the thread names
+	 * @param threads upper bound of the pool, ignored by models without threads of their own
+	 */
+	Executor getExecutor(String name, int threads);
+}
@@ -0,0 +1,36 @@
+package com.myrpc.concurrent;
+
+import com.myrpc.extension.RpcComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * One virtual thread per request, for methods that mostly wait on io. Looked up reflectively so the jar still runs on
+ * java 8, where it falls back to the cached pool. The threads setting does not bound virtual threads.
+ */
+@RpcComponent(name = "virtual")
+public class VirtualThreadPool implements ThreadPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+	@Override
+	public Executor getExecutor(String name, int threads) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+			ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (Executor) newThreadPerTaskExecutor.invoke(null, threadFactory);
+		} catch (Exception e) {
+			logger.warn("Virtual threads are not available on java " + System.getProperty("java.version") + ", threadpool " + name
+					+ " falls back to cached");
+			return new CachedThreadPool().getExecutor(name, threads);
+		}
+	}
+}
@@ -24,4 +24,11 @@ public abstract class AbstractConfig implements Serializable {
 	protected String getVal(int val, int defaultVal) {
 		return val > 0 ? String.valueOf(val) : String.valueOf(defaultVal);
 	}
+
+	/**
+	 * For settings where a negative value has a meaning of its own, only an unset 0 takes the default.
+	 */
+	protected String getSignedVal(int val, int defaultVal) {
+		return val != 0 ? String.valueOf(val) : String.valueOf(defaultVal);
+	}
 }
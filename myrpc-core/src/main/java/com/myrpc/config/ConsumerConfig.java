@@ -9,6 +9,8 @@ public abstract class ConsumerConfig<T> extends ProviderConfig<T> {
 	private static final long serialVersionUID = 5369377538761488535L;
 	protected int retries;
 	protected int connecttimeout;
+	protected int connections;
+	protected int idletimeout;
 	protected String proxy;
 	protected String cluster;
 	protected String loadbalance;
@@ -37,6 +39,22 @@ public abstract class ConsumerConfig<T> extends ProviderConfig<T> {
 		this.connecttimeout = connecttimeout;
 	}
 
+	public int getConnections() {
+		return connections;
+	}
+
+	public void setConnections(int connections) {
+		this.connections = connections;
+	}
+
+	public int getIdletimeout() {
+		return idletimeout;
+	}
+
+	public void setIdletimeout(int idletimeout) {
+		this.idletimeout = idletimeout;
+	}
+
 	public String getProxy() {
 		return proxy;
 	}
@@ -58,6 +76,8 @@ public abstract class ConsumerConfig<T> extends ProviderConfig<T> {
 		parameters.put(RpcConstants.LOADBALANCE_KEY, getVal(getLoadbalance(), RpcConstants.DEFAULT_LOADBALANCE));
 		parameters.put(RpcConstants.RETRIES_KEY, getVal(getRetries(), RpcConstants.DEFAULT_RRETRIES));
 		parameters.put(RpcConstants.CONNECTTIMEOUT_KEY, getVal(getConnecttimeout(), RpcConstants.DEFAULT_CONNECTTIMEOUT));
+		parameters.put(RpcConstants.CONNECTIONS_KEY, getVal(getConnections(), RpcConstants.DEFAULT_CONNECTIONS));
+		parameters.put(RpcConstants.IDLETIMEOUT_KEY, getSignedVal(getIdletimeout(), RpcConstants.DEFAULT_IDLETIMEOUT));
 		parameters.put(RpcConstants.PROXY_KEY, getVal(getProxy(), RpcConstants.DEFAULT_PROXY));
 		parameters.put(RpcConstants.CLUSTER_KEY, getVal(getCluster(), RpcConstants.DEFAULT_CLUSTER));
 	}
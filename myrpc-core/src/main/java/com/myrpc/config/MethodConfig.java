@@ -0,0 +1,65 @@
+package com.myrpc.config;
+
+import com.myrpc.common.RpcConstants;
+import com.myrpc.common.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Settings of one method of a {@link ServiceConfig}, they apply to every overload of the name.
+ */
+public class MethodConfig extends AbstractConfig {
+
+	private static final long serialVersionUID = -2356834652475187367L;
+	private String name;
+	private String threadpool;
+	private int threads;
+	private int executes;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getThreadpool() {
+		return threadpool;
+	}
+
+	public void setThreadpool(String threadpool) {
+		this.threadpool = threadpool;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getExecutes() {
+		return executes;
+	}
+
+	public void setExecutes(int executes) {
+		this.executes = executes;
+	}
+
+	protected void addMethodParameters(Map<String, String> parameters) {
+		if (StringUtils.isEmpty(getName())) {
+			throw new IllegalStateException("method name can not be empty");
+		}
+		if (!StringUtils.isEmpty(getThreadpool())) {
+			parameters.put(URL.getMethodParameterKey(getName(), RpcConstants.THREADPOOL_KEY), getThreadpool());
+		}
+		if (getThreads() > 0) {
+			parameters.put(URL.getMethodParameterKey(getName(), RpcConstants.THREADS_KEY), String.valueOf(getThreads()));
+		}
+		if (getExecutes() > 0) {
+			parameters.put(URL.getMethodParameterKey(getName(), RpcConstants.EXECUTES_KEY), String.valueOf(getExecutes()));
+		}
+	}
+}
@@ -15,6 +15,16 @@ public class ProtocolConfig extends AbstractConfig {
 	private String threadpool;
 	private int threads;
 	private int iothreads;
+	private String ioengine;
+	private int acceptors;
+	private int writebatch;
+	private int writebatchbytes;
+	private int readbacklog;
+	private int writebacklog;
+	private int codeltarget;
+	private int codelinterval;
+	private String compression;
+	private int compressthreshold;
 
 
 	public String getName() {
@@ -95,4 +105,91 @@ public class ProtocolConfig extends AbstractConfig {
 		this.iothreads = iothreads;
 	}
 
+	public String getIoengine() {
+		return ioengine;
+	}
+
+	public void setIoengine(String ioengine) {
+		this.ioengine = ioengine;
+	}
+
+	public int getAcceptors() {
+		return acceptors;
+	}
+
+	public void setAcceptors(int acceptors) {
+		this.acceptors = acceptors;
+	}
+
+	public int getWritebatch() {
+		return writebatch;
+	}
+
+	public void setWritebatch(int writebatch) {
+		this.writebatch = writebatch;
+	}
+
+	public int getWritebatchbytes() {
+		return writebatchbytes;
+	}
+
+	public void setWritebatchbytes(int writebatchbytes) {
+		this.writebatchbytes = writebatchbytes;
+	}
+
+	public int getReadbacklog() {
+		return readbacklog;
+	}
+
+	public void setReadbacklog(int readbacklog) {
+		this.readbacklog = readbacklog;
+	}
+
+	public int getWritebacklog() {
+		return writebacklog;
+	}
+
+	public void setWritebacklog(int writebacklog) {
+		this.writebacklog = writebacklog;
+	}
+
+	public int getCodeltarget() {
+		return codeltarget;
+	}
+
+	public void setCodeltarget(int codeltarget) {
+		this.codeltarget = codeltarget;
+	}
+
+	public int getCodelinterval() {
+		return codelinterval;
+	}
+
+	public void setCodelinterval(int codelinterval) {
+		this.codelinterval = codelinterval;
+	}
+
+	public String getCompression() {
+		return compression;
+	}
+
+	/**
+	 * Codecs this side accepts, comma separated in order of preference, e.g. "lz4,zstd". Each connection uses the first codec
+	 * the consumer offers that the provider accepts as well, none when either side leaves this empty.
+	 */
+	public void setCompression(String compression) {
+		this.compression = compression;
+	}
+
+	public int getCompressthreshold() {
+		return compressthreshold;
+	}
+
+	/**
+	 * Bodies smaller than this many bytes are sent raw.
+	 */
+	public void setCompressthreshold(int compressthreshold) {
+		this.compressthreshold = compressthreshold;
+	}
+
 }
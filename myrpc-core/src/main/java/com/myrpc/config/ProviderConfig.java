@@ -145,6 +145,18 @@ public abstract class ProviderConfig<T> extends AbstractConfig {
 		parameters.put(RpcConstants.THREADPOOL_KEY, getVal(getProtocol().getThreadpool(), RpcConstants.DEFAULT_THREADPOOL));
 		parameters.put(RpcConstants.THREADS_KEY, getVal(getProtocol().getThreads(), RpcConstants.DEFAULT_THREADS));
 		parameters.put(RpcConstants.IOTHREADS_KEY, getVal(getProtocol().getIothreads(), RpcConstants.DEFAULT_IOTHREADS));
+		parameters.put(RpcConstants.IOENGINE_KEY, getVal(getProtocol().getIoengine(), RpcConstants.DEFAULT_IOENGINE));
+		parameters.put(RpcConstants.ACCEPTORS_KEY, getVal(getProtocol().getAcceptors(), RpcConstants.DEFAULT_ACCEPTORS));
+		parameters.put(RpcConstants.WRITEBATCH_KEY, getVal(getProtocol().getWritebatch(), RpcConstants.DEFAULT_WRITEBATCH));
+		parameters.put(RpcConstants.WRITEBATCHBYTES_KEY, getVal(getProtocol().getWritebatchbytes(), RpcConstants.DEFAULT_WRITEBATCHBYTES));
+		parameters.put(RpcConstants.READBACKLOG_KEY, getVal(getProtocol().getReadbacklog(), RpcConstants.DEFAULT_READBACKLOG));
+		parameters.put(RpcConstants.WRITEBACKLOG_KEY, getVal(getProtocol().getWritebacklog(), RpcConstants.DEFAULT_WRITEBACKLOG));
+		parameters.put(RpcConstants.CODELTARGET_KEY, getSignedVal(getProtocol().getCodeltarget(), RpcConstants.DEFAULT_CODELTARGET));
+		parameters.put(RpcConstants.CODELINTERVAL_KEY, getVal(getProtocol().getCodelinterval(), RpcConstants.DEFAULT_CODELINTERVAL));
+		if (!StringUtils.isEmpty(getProtocol().getCompression())) {
+			parameters.put(RpcConstants.COMPRESSION_KEY, getProtocol().getCompression());
+		}
+		parameters.put(RpcConstants.COMPRESSTHRESHOLD_KEY, getVal(getProtocol().getCompressthreshold(), RpcConstants.DEFAULT_COMPRESSTHRESHOLD));
 	}
 
 	protected void addRegistryParameters(Map<String, String> parameters) {
@@ -26,6 +26,17 @@ public class ReferenceConfig<T> extends ConsumerConfig<T> {
 		ref = classProxy.newInstance(interfaceClass);
 	}
 
+	/**
+	 * Releases the connections of this reference, the proxy must not be used afterwards.
+	 */
+	public synchronized void destroy() {
+		if (classProxy != null) {
+			classProxy.destroy();
+			classProxy = null;
+			ref = null;
+		}
+	}
+
 	@Override
 	public URL url() {
 
@@ -1,13 +1,51 @@
 package com.myrpc.config;
 
 import com.myrpc.common.RpcConstants;
+import com.myrpc.common.StringUtils;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ServiceConfig<T> extends ProviderConfig<T> {
 
 	private static final long serialVersionUID = 4186914879813709242L;
+	private String threadpool;
+	private int threads;
+	private int executes;
+	private List<MethodConfig> methods;
+
+	public String getThreadpool() {
+		return threadpool;
+	}
+
+	public void setThreadpool(String threadpool) {
+		this.threadpool = threadpool;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getExecutes() {
+		return executes;
+	}
+
+	public void setExecutes(int executes) {
+		this.executes = executes;
+	}
+
+	public List<MethodConfig> getMethods() {
+		return methods;
+	}
+
+	public void setMethods(List<MethodConfig> methods) {
+		this.methods = methods;
+	}
 
 	private void checkRef() {
 		// reference should not be null, and is the implementation of the given interface
@@ -30,9 +68,30 @@ public class ServiceConfig<T> extends ProviderConfig<T> {
 		addAppliactionParameters(parameters);
 		addProtocolParameters(parameters);
 		addRegistryParameters(parameters);
+		addThreadPoolParameters(parameters);
 		String protocol = RpcConstants.PROVIDER;
 
 		return new URL(protocol, getProtocol().getHost(), String.valueOf(getProtocol().getPort()), getInterface(), parameters);
 
 	}
+
+	/**
+	 * Service and method level thread pools and bulkheads, the protocol's pool is used where they are not set.
+	 */
+	protected void addThreadPoolParameters(Map<String, String> parameters) {
+		if (!StringUtils.isEmpty(getThreadpool())) {
+			parameters.put(RpcConstants.SERVICE_THREADPOOL_KEY, getThreadpool());
+		}
+		if (getThreads() > 0) {
+			parameters.put(RpcConstants.SERVICE_THREADS_KEY, String.valueOf(getThreads()));
+		}
+		if (getExecutes() > 0) {
+			parameters.put(RpcConstants.SERVICE_EXECUTES_KEY, String.valueOf(getExecutes()));
+		}
+		if (methods != null) {
+			for (MethodConfig method : methods) {
+				method.addMethodParameters(parameters);
+			}
+		}
+	}
 }
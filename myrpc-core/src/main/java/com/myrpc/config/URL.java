@@ -107,6 +107,17 @@ public class URL implements Serializable {
 		return this.uri.toString();
 	}
 
+	/**
+	 * e.g. method.sayHello.threads
+	 */
+	public static String getMethodParameterKey(String method, String name) {
+		return "method." + method + "." + name;
+	}
+
+	public String getMethodParameter(String method, String name) {
+		return parameters.get(getMethodParameterKey(method, name));
+	}
+
 	public synchronized URL addParameters(String name, String value) {
 		parameters.put(name, value);
 		StringBuilder stringBuilder = new StringBuilder();
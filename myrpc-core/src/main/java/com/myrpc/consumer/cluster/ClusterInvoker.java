@@ -11,4 +11,6 @@ public interface ClusterInvoker {
 	ClusterInvoker init();
 
 	<T> InvokeFuture<T> invoke(RpcRequest request, Class<T> returnType);
+
+	void destroy();
 }
@@ -29,4 +29,9 @@ public class FailFastClusterInvoker implements ClusterInvoker {
 	public <T> InvokeFuture<T> invoke(RpcRequest request, Class<T> returnType) {
 		return dispatcher.dispatch(request, returnType);
 	}
+
+	@Override
+	public void destroy() {
+		dispatcher.destroy();
+	}
 }
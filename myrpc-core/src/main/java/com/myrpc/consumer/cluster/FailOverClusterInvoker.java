@@ -65,6 +65,11 @@ public class FailOverClusterInvoker implements ClusterInvoker {
 
 				@Override
 				public void failure(Throwable cause) {
+					if (request.getDeadline() != 0 && System.nanoTime() - request.getDeadline() >= 0) {
+						// the caller has given up, another attempt would only add load
+						failOverFuture.setFailure(cause);
+						return;
+					}
 					if (logger.isWarnEnabled()) {
 
 						logger.warn("[Fail-over] retry, [{}] attempts left, [method: {}], {}.", tryCount - 1, request.getMethodName(),
@@ -78,4 +83,9 @@ public class FailOverClusterInvoker implements ClusterInvoker {
 			failOverFuture.setFailure(lastCause);
 		}
 	}
+
+	@Override
+	public void destroy() {
+		dispatcher.destroy();
+	}
 }
@@ -32,4 +32,9 @@ public class FailSafeClusterInvoker implements ClusterInvoker {
 		InvokeFuture<T> future = dispatcher.dispatch(request, returnType);
 		return FailSafeInvokeFuture.with(future);
 	}
+
+	@Override
+	public void destroy() {
+		dispatcher.destroy();
+	}
 }
@@ -3,7 +3,6 @@ package com.myrpc.consumer.dispathcer;
 
 import com.myrpc.common.RpcConstants;
 import com.myrpc.config.URL;
-import com.myrpc.consumer.future.DefaultInvokeFuture;
 import com.myrpc.consumer.future.InvokeFuture;
 import com.myrpc.consumer.loadbalance.LoadBalance;
 import com.myrpc.exception.MyRpcInvokeException;
@@ -11,7 +10,9 @@ import com.myrpc.extension.ExtensionLoader;
 import com.myrpc.model.RpcRequest;
 import com.myrpc.registry.Registry;
 import com.myrpc.registry.RegistryListener;
+import com.myrpc.transport.ConnectionManager;
 import com.myrpc.transport.Connector;
+import com.myrpc.transport.ConnectorPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,11 +22,13 @@ import java.util.concurrent.ConcurrentHashMap;
 abstract class AbstractDispatcher implements Dispatcher {
 
 	private final Logger logger = LoggerFactory.getLogger(getClass());
-	protected final Map<String, Connector> connectors = new ConcurrentHashMap<>();
+	protected final Map<String, ConnectorPool> connectors = new ConcurrentHashMap<>();
 	protected URL url;
 	protected LoadBalance loadBalance;
 	protected Registry registry;
 	protected RegistryListener registryListener;
+	private URL subscribeUrl;
+	private URL consumerUrl;
 
 	protected AbstractDispatcher(URL url) {
 		this.url = url;
@@ -35,11 +38,11 @@ abstract class AbstractDispatcher implements Dispatcher {
 		this.registry = ExtensionLoader.getExtension(Registry.class, url.getParameter(RpcConstants.REGISTRY_NAME_KEY)).with(url).init();
 
 		this.registryListener = new RegistryListener(url);
-		URL subscribeUrl = url.addParameters(RpcConstants.CATEGORY_KEY, RpcConstants.DEFAULT_CATEGORY);
+		this.subscribeUrl = url.addParameters(RpcConstants.CATEGORY_KEY, RpcConstants.DEFAULT_CATEGORY);
 		this.registry.subscribe(subscribeUrl, registryListener);
 
-		URL providerUrl = url.addParameters(RpcConstants.CATEGORY_KEY, RpcConstants.CONSUMERS_CATEGORY);
-		this.registry.register(providerUrl);
+		this.consumerUrl = url.addParameters(RpcConstants.CATEGORY_KEY, RpcConstants.CONSUMERS_CATEGORY);
+		this.registry.register(consumerUrl);
 	}
 
 	protected List<String> getServerNodes(URL url) {
@@ -56,13 +59,22 @@ abstract class AbstractDispatcher implements Dispatcher {
 					if (!connectors.keySet().contains(serverNodeAddress)) {
 
 						providerUrl = providerUrl.addParameters(RpcConstants.CONNECTTIMEOUT_KEY, url.getParameter(RpcConstants.CONNECTTIMEOUT_KEY));
-
-						Connector connector = ExtensionLoader.
-								getExtension(Connector.class, url.getParameter(RpcConstants.TRANSPORTER_KEY)).with(providerUrl).init();
-
-						if (!connector.isConnected())
-							connector.connect();
-						connectors.put(serverNodeAddress, connector);
+						providerUrl = providerUrl.addParameters(RpcConstants.TIMEOUT_KEY, url.getParameter(RpcConstants.TIMEOUT_KEY));
+						providerUrl = providerUrl.addParameters(RpcConstants.IOENGINE_KEY, url.getParameter(RpcConstants.IOENGINE_KEY));
+						providerUrl = providerUrl.addParameters(RpcConstants.WRITEBATCH_KEY, url.getParameter(RpcConstants.WRITEBATCH_KEY));
+						providerUrl = providerUrl.addParameters(RpcConstants.WRITEBATCHBYTES_KEY, url.getParameter(RpcConstants.WRITEBATCHBYTES_KEY));
+						providerUrl = providerUrl.addParameters(RpcConstants.WRITEBACKLOG_KEY, url.getParameter(RpcConstants.WRITEBACKLOG_KEY));
+						providerUrl = providerUrl.addParameters(RpcConstants.IDLETIMEOUT_KEY, url.getParameter(RpcConstants.IDLETIMEOUT_KEY));
+						// what this consumer offers, not what the provider accepts, the handshake settles it
+						providerUrl = providerUrl.addParameters(RpcConstants.COMPRESSION_KEY, url.getParameter(RpcConstants.COMPRESSION_KEY));
+						providerUrl = providerUrl.addParameters(RpcConstants.COMPRESSTHRESHOLD_KEY, url.getParameter(RpcConstants.COMPRESSTHRESHOLD_KEY));
+
+						ConnectorPool connectorPool = ConnectionManager.acquire(url.getParameter(RpcConstants.TRANSPORTER_KEY), providerUrl,
+								url.getIntParameter(RpcConstants.CONNECTIONS_KEY, RpcConstants.DEFAULT_CONNECTIONS));
+
+						if (connectors.putIfAbsent(serverNodeAddress, connectorPool) != null) {
+							ConnectionManager.release(connectorPool);
+						}
 					}
 				}
 
@@ -71,21 +83,15 @@ abstract class AbstractDispatcher implements Dispatcher {
 				}
 				for (Map.Entry entry : connectors.entrySet()) {
 					if (!newAllServerNodeSet.contains(entry.getKey())) {
-						Connector connector = connectors.get(entry.getKey());
-						if (connector.isConnected())
-							connector.disConnect();
-						connectors.remove(entry.getKey());
+						ConnectorPool connectorPool = connectors.remove(entry.getKey());
+						if (connectorPool != null) {
+							ConnectionManager.release(connectorPool);
+						}
 					}
 				}
 			} else {
 				logger.error("No available server node. All server nodes are down !!!");
-				for (Map.Entry entry : connectors.entrySet()) {
-					Connector connector = connectors.get(entry.getKey());
-					if (connector.isConnected())
-						connector.disConnect();
-					connectors.remove(entry.getKey());
-				}
-				connectors.clear();
+				releaseConnectors();
 			}
 		}
 		return new ArrayList<>(newAllServerNodeSet);
@@ -94,16 +100,28 @@ abstract class AbstractDispatcher implements Dispatcher {
 	protected Connector getConnector(URL url) {
 		List<String> serverNodes = getServerNodes(url);
 		String serverNode = loadBalance.select(serverNodes);
-		Connector connector = connectors.get(serverNode);
-		if (!connector.isConnected())
-			connector.connect();
-		return connector;
+		return connectors.get(serverNode).select();
 	}
 
 	protected <T> InvokeFuture<T> write(final RpcRequest request, final Class<T> returnType) {
-		final InvokeFuture<T> future = new DefaultInvokeFuture<T>(request).with(returnType);
-		getConnector(url).request(request);
-		return future;
+		request.setTimeout(url.getIntParameter(RpcConstants.TIMEOUT_KEY, 0));
+		return getConnector(url).request(request, returnType);
+	}
+
+	private void releaseConnectors() {
+		for (String serverNode : connectors.keySet()) {
+			ConnectorPool connectorPool = connectors.remove(serverNode);
+			if (connectorPool != null) {
+				ConnectionManager.release(connectorPool);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		registry.unsubscribe(subscribeUrl, registryListener);
+		registry.unregister(consumerUrl);
+		releaseConnectors();
 	}
 
 }
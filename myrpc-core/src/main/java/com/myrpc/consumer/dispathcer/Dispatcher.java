@@ -6,4 +6,9 @@ import com.myrpc.model.RpcRequest;
 public interface Dispatcher {
 
 	<T> InvokeFuture dispatch(RpcRequest request, Class<T> returnType);
+
+	/**
+	 * Leaves the registry and gives back the shared connections.
+	 */
+	void destroy();
 }
@@ -1,5 +1,6 @@
 package com.myrpc.consumer.future;
 
+import com.myrpc.exception.MyRpcOverloadException;
 import com.myrpc.exception.MyRpcRemotingException;
 import com.myrpc.exception.MyRpcTimeOutException;
 import com.myrpc.model.RpcRequest;
@@ -7,34 +8,35 @@ import com.myrpc.model.RpcResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
 
 import static com.myrpc.common.Preconditions.checkNotNull;
+import static com.myrpc.common.StackTraceUtils.stackTrace;
 
-abstract class AbstractFuture<V> implements InvokeFuture<V> {
+/**
+ * Built on {@link CompletableFuture}: the result is a single volatile field completed by one CAS,
+ * dependents are kept in a lock-free stack and waiting callers park until completion. Listeners are also pushed on a stack of
+ * their own with one CAS, so that a removed one can be found and switched off, the completion stack cannot drop it.
+ */
+abstract class AbstractFuture<V> extends CompletableFuture<V> implements InvokeFuture<V> {
 
 	private final Logger logger = LoggerFactory.getLogger(getClass());
-	protected static final ConcurrentHashMap<String, DefaultInvokeFuture<?>> pendingFutures = new ConcurrentHashMap<>();
+	protected PendingFutures pendingFutures;
 	protected RpcRequest request;
 	protected RpcResponse response;
 	protected Class<V> returnType;
 	protected long startTime;
-	protected static final int NEW = 0;
-	protected static final int COMPLETING = 1;
-	protected static final int NORMAL = 2;
-	protected static final int EXCEPTIONAL = 3;
-	protected AtomicInteger state = new AtomicInteger(NEW);
-	protected List<Listener<V>> listeners = new ArrayList<>();
-	protected Lock lock = new ReentrantLock();
-	protected Condition condition = lock.newCondition();
-	protected Object outcome;
+	// dropped on completion, after which removing a listener is too late anyway
+	private volatile ListenerAdapter<V> listenerAdapters;
+
+	private static final AtomicReferenceFieldUpdater<AbstractFuture, ListenerAdapter> listenerAdaptersUpdater = AtomicReferenceFieldUpdater
+			.newUpdater(AbstractFuture.class, ListenerAdapter.class, "listenerAdapters");
 
 	@Override
 	public InvokeFuture<V> with(Class<V> returnType) {
@@ -42,90 +44,78 @@ abstract class AbstractFuture<V> implements InvokeFuture<V> {
 		return this;
 	}
 
-	protected int state() {
-		return state.get();
-	}
-
-	protected Object outcome() {
-		return outcome;
-	}
-
-	@Override
-	public boolean isDone() {
-		return state.get() > COMPLETING;
-	}
-
 	@Override
 	public V get() throws InterruptedException {
-		return get(0L, TimeUnit.MILLISECONDS);
+		try {
+			return super.get();
+		} catch (ExecutionException e) {
+			throw translate(e.getCause());
+		}
 	}
 
+	/**
+	 * @param timeout 0 waits until the future is done
+	 */
 	@Override
 	public V get(long timeout, TimeUnit unit) throws InterruptedException {
 		if (unit == null)
 			throw new NullPointerException("unit");
 
-		if (state() <= COMPLETING) {
+		if (timeout <= 0L) {
+			return get();
+		}
+		try {
+			return super.get(timeout, unit);
+		} catch (ExecutionException e) {
+			throw translate(e.getCause());
+		} catch (TimeoutException e) {
+			if (pendingFutures != null && request != null) {
+				pendingFutures.remove(request.getRequestId());
+			}
+			// complete it, nothing else will once the entry is gone, a response that got in first still wins
+			setFailure(new MyRpcTimeOutException(
+					"Timeout exception. Request id: " + (request == null ? null : request.getRequestId()) + ". Request class name: " + (
+							request == null ? null : request.getInterfaceName()) + ". Request method: " + (request == null ?
+							null :
+							request.getMethodName())));
 			try {
-				lock.lock();
-				state.set(COMPLETING);
-				awaitDone(timeout, unit);
-			} finally {
-				lock.unlock();
+				return super.get();
+			} catch (ExecutionException ee) {
+				throw translate(ee.getCause());
 			}
 		}
-		return get(state());
 	}
 
-	private V get(int s) {
-		Object x = outcome;
-		if (s == NORMAL) {
-			return (V) x;
+	private RuntimeException translate(Throwable cause) {
+		if (cause instanceof MyRpcTimeOutException) {
+			return (MyRpcTimeOutException) cause;
 		}
-		throw new MyRpcRemotingException((Throwable) x);
-	}
-
-	private void awaitDone(long timeout, TimeUnit unit) throws InterruptedException {
-		if (timeout == 0L)
-			condition.await();
-		else {
-			boolean isTimeout = condition.await(timeout, unit);
-
-			if (!isTimeout) {
-				pendingFutures.remove(this.request.getRequestId());
-				throw new MyRpcTimeOutException(
-						"Timeout exception. Request id: " + this.request.getRequestId() + ". Request class name: " + this.request.getInterfaceName()
-								+ ". Request method: " + this.request.getMethodName());
-			}
+		if (cause instanceof MyRpcOverloadException) {
+			return (MyRpcOverloadException) cause;
 		}
+		return new MyRpcRemotingException(cause);
 	}
 
 	public void setSuccess(V result) {
-		try {
-			lock.lock();
-
-			outcome = result;
-			state.set(NORMAL);
-			done(state(), outcome());
-
-			condition.signal();
-		} finally {
-			lock.unlock();
-		}
+		complete(result);
 	}
 
 	public void setFailure(Throwable lastCause) {
-		try {
-			lock.lock();
+		completeExceptionally(lastCause);
+	}
 
-			outcome = lastCause;
-			state.set(EXCEPTIONAL);
-			done(state(), outcome());
+	@Override
+	public boolean complete(V value) {
+		boolean completed = super.complete(value);
+		listenerAdapters = null;
+		return completed;
+	}
 
-			condition.signal();
-		} finally {
-			lock.unlock();
-		}
+	@Override
+	public boolean completeExceptionally(Throwable cause) {
+		boolean completed = super.completeExceptionally(cause);
+		listenerAdapters = null;
+		return completed;
 	}
 
 	@Override
@@ -133,35 +123,22 @@ abstract class AbstractFuture<V> implements InvokeFuture<V> {
 
 		this.response = response;
 
-		if (this.response.getError() == null) {
+		if (this.response.isOverloaded()) {
+			setFailure(new MyRpcOverloadException("Provider overloaded, request shed. Request id: " + this.request.getRequestId()
+					+ ". Request class name: " + this.request.getInterfaceName() + ". Request method: " + this.request.getMethodName()));
+		} else if (this.response.getError() == null) {
 			setSuccess((V) this.response.getResult());
 		} else {
 			setFailure(this.response.getError());
 		}
 
-		long responseTime = System.currentTimeMillis() - startTime;
-		logger.debug("Service response Request id: " + this.request.getRequestId() + ". Request interfaceName: " + this.request.getInterfaceName()
-				+ ". Request method: " + this.request.getMethodName() + ". Response Time: " + responseTime + "ms");
-	}
-
-	public static void received(RpcResponse response) {
-		InvokeFuture invokeFuture = pendingFutures.get(response.getRequestId());
-
-		if (invokeFuture == null) {
-			return;
-		}
-		if (invokeFuture != null) {
-			pendingFutures.remove(response.getRequestId());
-			invokeFuture.done(response);
+		if (logger.isDebugEnabled()) {
+			long responseTime = System.currentTimeMillis() - startTime;
+			logger.debug("Service response Request id: " + this.request.getRequestId() + ". Request interfaceName: " + this.request
+					.getInterfaceName() + ". Request method: " + this.request.getMethodName() + ". Response Time: " + responseTime + "ms");
 		}
 	}
 
-
-	@Override
-	public boolean isCancelled() {
-		throw new UnsupportedOperationException();
-	}
-
 	@Override
 	public boolean cancel(boolean mayInterruptIfRunning) {
 		throw new UnsupportedOperationException();
@@ -171,14 +148,7 @@ abstract class AbstractFuture<V> implements InvokeFuture<V> {
 	public InvokeFuture<V> addListener(Listener<V> listener) {
 		checkNotNull(listener, "listener");
 
-		synchronized (this) {
-			addListener0(listener);
-		}
-
-		if (isDone()) {
-			notifyListeners(state(), outcome());
-		}
-
+		addListener0(listener);
 		return this;
 	}
 
@@ -186,19 +156,12 @@ abstract class AbstractFuture<V> implements InvokeFuture<V> {
 	public InvokeFuture<V> addListeners(Listener<V>... listeners) {
 		checkNotNull(listeners, "listeners");
 
-		synchronized (this) {
-			for (Listener<V> listener : listeners) {
-				if (listener == null) {
-					continue;
-				}
-				addListener0(listener);
+		for (Listener<V> listener : listeners) {
+			if (listener == null) {
+				continue;
 			}
+			addListener0(listener);
 		}
-
-		if (isDone()) {
-			notifyListeners(state(), outcome());
-		}
-
 		return this;
 	}
 
@@ -206,10 +169,7 @@ abstract class AbstractFuture<V> implements InvokeFuture<V> {
 	public InvokeFuture<V> removeListener(Listener<V> listener) {
 		checkNotNull(listener, "listener");
 
-		synchronized (this) {
-			removeListener0(listener);
-		}
-
+		removeListener0(listener);
 		return this;
 	}
 
@@ -217,56 +177,71 @@ abstract class AbstractFuture<V> implements InvokeFuture<V> {
 	public InvokeFuture<V> removeListeners(Listener<V>... listeners) {
 		checkNotNull(listeners, "listeners");
 
-		synchronized (this) {
-			for (Listener<V> listener : listeners) {
-				if (listener == null) {
-					continue;
-				}
-				removeListener0(listener);
+		for (Listener<V> listener : listeners) {
+			if (listener == null) {
+				continue;
 			}
+			removeListener0(listener);
 		}
 		return this;
 	}
 
-	protected void notifyListeners(int state, Object x) {
-		List<Listener<V>> listeners;
-		synchronized (this) {
-			if (this.listeners.isEmpty()) {
-				return;
+	private void addListener0(Listener<V> listener) {
+		ListenerAdapter<V> adapter = new ListenerAdapter<V>(listener);
+		if (!isDone()) {
+			ListenerAdapter<V> head;
+			do {
+				head = listenerAdapters;
+				adapter.next = head;
+			} while (!listenerAdaptersUpdater.compareAndSet(this, head, adapter));
+			// completed meanwhile, do not keep it
+			if (isDone()) {
+				listenerAdapters = null;
 			}
-
-			listeners = this.listeners;
-			//this.listeners = null;
 		}
-		for (Listener<V> listener : listeners)
-			notifyListener0(listener, state, x);
-	}
-
-	private void addListener0(Listener<V> listener) {
-		listeners.add(listener);
+		whenComplete(adapter);
 	}
 
+	/**
+	 * Switches off the most recently added adapter of an equal listener that is not removed yet, adapters stay on the stack
+	 * until completion.
+	 */
 	private void removeListener0(Listener<V> listener) {
-		listeners.remove(listener);
+		for (ListenerAdapter<V> adapter = listenerAdapters; adapter != null; adapter = adapter.next) {
+			if (adapter.listener.equals(listener) && ListenerAdapter.removedUpdater.compareAndSet(adapter, 0, 1)) {
+				return;
+			}
+		}
 	}
 
-	protected abstract void notifyListener0(Listener<V> listener, int state, Object x);
+	private static class ListenerAdapter<V> implements BiConsumer<V, Throwable> {
 
-	protected abstract void done(int state, Object x);
+		private static final Logger logger = LoggerFactory.getLogger(ListenerAdapter.class);
+		private static final AtomicIntegerFieldUpdater<ListenerAdapter> removedUpdater = AtomicIntegerFieldUpdater
+				.newUpdater(ListenerAdapter.class, "removed");
+		private final Listener<V> listener;
+		private ListenerAdapter<V> next;
+		private volatile int removed;
 
-	@Override
-	public String toString() {
-		final String status;
-		switch (state.get()) {
-			case NORMAL:
-				status = "[Completed normally]";
-				break;
-			case EXCEPTIONAL:
-				status = "[Completed exceptionally: " + response + "]";
-				break;
-			default:
-				status = "[Not completed]";
+		ListenerAdapter(Listener<V> listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void accept(V result, Throwable cause) {
+			if (removed != 0) {
+				return;
+			}
+			try {
+				if (cause == null) {
+					listener.complete(result);
+				} else {
+					listener.failure(cause);
+				}
+			} catch (Throwable t) {
+				logger.error("An exception was thrown by {}.{}, {}.", listener.getClass().getName(), cause == null ? "complete()" : "failure()",
+						stackTrace(t));
+			}
 		}
-		return super.toString() + status;
 	}
 }
@@ -1,19 +1,49 @@
 package com.myrpc.consumer.future;
 
+import com.myrpc.exception.MyRpcTimeOutException;
 import com.myrpc.model.RpcRequest;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static com.myrpc.common.StackTraceUtils.stackTrace;
+import java.util.concurrent.TimeUnit;
 
-public class DefaultInvokeFuture<V> extends AbstractFuture<V> {
+public class DefaultInvokeFuture<V> extends AbstractFuture<V> implements TimerTask {
 
 	private static final Logger logger = LoggerFactory.getLogger(DefaultInvokeFuture.class);
+	// one wheel for all in-flight calls, a tick of 10ms is plenty for rpc timeouts
+	private static final Timer timeoutTimer = new HashedWheelTimer(new DefaultThreadFactory("MyRpcFutureTimeout", true), 10, TimeUnit.MILLISECONDS);
+	private volatile Timeout timeout;
 
-	public DefaultInvokeFuture(RpcRequest request) {
+	public DefaultInvokeFuture(RpcRequest request, PendingFutures pendingFutures) {
+		this(request, pendingFutures, 0);
+	}
+
+	/**
+	 * @param timeoutMillis the future is failed with {@link MyRpcTimeOutException} after this, 0 means never
+	 */
+	public DefaultInvokeFuture(RpcRequest request, PendingFutures pendingFutures, long timeoutMillis) {
 		this.request = request;
 		this.startTime = System.currentTimeMillis();
+		this.pendingFutures = pendingFutures;
 		pendingFutures.put(request.getRequestId(), this);
+		if (timeoutMillis > 0) {
+			this.timeout = timeoutTimer.newTimeout(this, timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void run(Timeout timeout) {
+		// only the side which removes the entry completes the future, a response racing with us is dropped
+		if (pendingFutures.remove(request.getRequestId()) != null) {
+			setFailure(new MyRpcTimeOutException(
+					"Timeout exception. Request id: " + request.getRequestId() + ". Request class name: " + request.getInterfaceName()
+							+ ". Request method: " + request.getMethodName() + ". Elapsed: " + (System.currentTimeMillis() - startTime) + "ms"));
+		}
 	}
 
 	@Override
@@ -22,22 +52,27 @@ public class DefaultInvokeFuture<V> extends AbstractFuture<V> {
 	}
 
 	@Override
-	protected void notifyListener0(Listener<V> listener, int state, Object x) {
-		try {
-			if (state == NORMAL) {
-				listener.complete((V) x);
-			} else {
-				listener.failure((Throwable) x);
-			}
-		} catch (Throwable t) {
-			logger.error("An exception was thrown by {}.{}, {}.", listener.getClass().getName(), state == NORMAL ? "complete()" : "failure()",
-					stackTrace(t));
+	public boolean complete(V value) {
+		if (super.complete(value)) {
+			cancelTimeout();
+			return true;
 		}
+		return false;
 	}
 
 	@Override
-	protected void done(int state, Object x) {
-		notifyListeners(state, x);
+	public boolean completeExceptionally(Throwable cause) {
+		if (super.completeExceptionally(cause)) {
+			cancelTimeout();
+			return true;
+		}
+		return false;
 	}
-}
 
+	private void cancelTimeout() {
+		Timeout timeout = this.timeout;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+	}
+}
@@ -20,6 +20,20 @@ public class FailSafeInvokeFuture<V> extends AbstractFuture<V> {
 
 	private FailSafeInvokeFuture(InvokeFuture<V> future) {
 		this.future = future;
+		future.addListener(new Listener<V>() {
+			@Override
+			public void complete(V result) {
+				FailSafeInvokeFuture.this.complete(result);
+			}
+
+			@Override
+			public void failure(Throwable cause) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Ignored exception on [Fail-safe]: {}.", stackTrace(cause));
+				}
+				FailSafeInvokeFuture.this.complete((V) ReflectUtils.getTypeDefaultValue(returnType()));
+			}
+		});
 	}
 
 	@Override
@@ -27,15 +41,10 @@ public class FailSafeInvokeFuture<V> extends AbstractFuture<V> {
 		return future.returnType();
 	}
 
-	@Override
-	public boolean isDone() {
-		return future.isDone();
-	}
-
 	@Override
 	public V get() {
 		try {
-			return future.get();
+			return super.get();
 		} catch (Throwable t) {
 			if (logger.isWarnEnabled()) {
 				logger.warn("Ignored exception on [Fail-safe]: {}.", stackTrace(t));
@@ -48,7 +57,7 @@ public class FailSafeInvokeFuture<V> extends AbstractFuture<V> {
 	@Override
 	public V get(long timeout, TimeUnit unit) {
 		try {
-			return future.get(timeout, unit);
+			return super.get(timeout, unit);
 		} catch (Throwable t) {
 			if (logger.isWarnEnabled()) {
 				logger.warn("Ignored exception on [Fail-safe]: {}.", stackTrace(t));
@@ -57,14 +66,6 @@ public class FailSafeInvokeFuture<V> extends AbstractFuture<V> {
 		return (V) ReflectUtils.getTypeDefaultValue(returnType());
 	}
 
-	@Override
-	protected void notifyListener0(Listener<V> listener, int state, Object x) {
-	}
-
-	@Override
-	protected void done(int state, Object x) {
-	}
-
 	public InvokeFuture<V> future() {
 		return future;
 	}
@@ -2,9 +2,10 @@ package com.myrpc.consumer.future;
 
 import com.myrpc.model.RpcResponse;
 
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
-public interface InvokeFuture<V> extends Future<V> {
+public interface InvokeFuture<V> extends Future<V>, CompletionStage<V> {
 
 	InvokeFuture<V> with(Class<V> returnType);
 
@@ -0,0 +1,81 @@
+package com.myrpc.consumer.future;
+
+import com.myrpc.model.RpcResponse;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Futures waiting for a response on one connection, keyed by the primitive request id.
+ * The table is split into stripes so the caller threads and the io thread seldom contend.
+ */
+public class PendingFutures {
+
+	private static final int STRIPES = 16;
+
+	private final LongObjectMap<DefaultInvokeFuture<?>>[] stripes;
+	private final AtomicInteger size = new AtomicInteger();
+
+	public PendingFutures() {
+		this.stripes = new LongObjectMap[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new LongObjectHashMap<>();
+		}
+	}
+
+	private LongObjectMap<DefaultInvokeFuture<?>> stripe(long requestId) {
+		// ids are sequential per connection, the low bits spread them evenly
+		return stripes[(int) requestId & (STRIPES - 1)];
+	}
+
+	public void put(long requestId, DefaultInvokeFuture<?> future) {
+		LongObjectMap<DefaultInvokeFuture<?>> stripe = stripe(requestId);
+		synchronized (stripe) {
+			stripe.put(requestId, future);
+		}
+		size.incrementAndGet();
+	}
+
+	public DefaultInvokeFuture<?> remove(long requestId) {
+		LongObjectMap<DefaultInvokeFuture<?>> stripe = stripe(requestId);
+		DefaultInvokeFuture<?> future;
+		synchronized (stripe) {
+			future = stripe.remove(requestId);
+		}
+		if (future != null) {
+			size.decrementAndGet();
+		}
+		return future;
+	}
+
+	public void received(RpcResponse response) {
+		DefaultInvokeFuture<?> future = remove(response.getRequestId());
+		if (future != null) {
+			future.done(response);
+		}
+	}
+
+	/**
+	 * Fail everything still waiting, e.g. when the connection is closed.
+	 */
+	public void failAll(Throwable cause) {
+		List<DefaultInvokeFuture<?>> futures = new ArrayList<>();
+		for (LongObjectMap<DefaultInvokeFuture<?>> stripe : stripes) {
+			synchronized (stripe) {
+				futures.addAll(stripe.values());
+				size.addAndGet(-stripe.size());
+				stripe.clear();
+			}
+		}
+		for (DefaultInvokeFuture<?> future : futures) {
+			future.setFailure(cause);
+		}
+	}
+
+	public int size() {
+		return size.get();
+	}
+}
@@ -3,14 +3,24 @@ package com.myrpc.consumer.proxy;
 import com.myrpc.common.RpcConstants;
 import com.myrpc.config.URL;
 import com.myrpc.consumer.cluster.ClusterInvoker;
+import com.myrpc.exception.MyRpcInvokeException;
+import com.myrpc.exception.MyRpcRemotingException;
+import com.myrpc.exception.MyRpcTimeOutException;
 import com.myrpc.extension.ExtensionLoader;
 import com.myrpc.model.RpcRequest;
+import com.myrpc.rpc.RpcContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 public abstract class AbstractProxy implements ClassProxy {
 
@@ -32,17 +42,79 @@ public abstract class AbstractProxy implements ClassProxy {
 		return this;
 	}
 
+	@Override
+	public void destroy() {
+		clusterInvoker.destroy();
+	}
+
 	protected Object invoke(RpcRequest request, Class<?> returnType) {
+		long timeout = setDeadline(request);
 		try {
-			return clusterInvoker.invoke(request, returnType).get(url.getIntParameter(RpcConstants.TIMEOUT_KEY), TimeUnit.MILLISECONDS);
+			return clusterInvoker.invoke(request, returnType).get(timeout, TimeUnit.MILLISECONDS);
 		} catch (InterruptedException e) {
-			logger.error("invoke failed", e);
+			Thread.currentThread().interrupt();
+			throw new MyRpcInvokeException("Interrupted while waiting for " + request.getInterfaceName() + "#" + request.getMethodName(), e);
 		} catch (ExecutionException e) {
-			logger.error("invoke failed", e);
+			throw new MyRpcRemotingException(e.getCause());
 		} catch (TimeoutException e) {
-			logger.error("invoke failed", e);
+			throw new MyRpcTimeOutException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * For interface methods returning {@link CompletableFuture} or {@link CompletionStage}, the caller thread does not wait for the response.
+	 */
+	protected <T> CompletableFuture<T> invokeAsync(RpcRequest request, Class<T> resultType) {
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			setDeadline(request);
+			clusterInvoker.invoke(request, resultType).whenComplete(new BiConsumer<T, Throwable>() {
+				@Override
+				public void accept(T value, Throwable cause) {
+					if (cause == null) {
+						result.complete(value);
+					} else {
+						result.completeExceptionally(cause);
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Inside a provider the call inherits what is left of the request being served.
+	 */
+	private long setDeadline(RpcRequest request) {
+		long timeout = RpcContext.getTimeout(url.getIntParameter(RpcConstants.TIMEOUT_KEY, 0));
+		if (timeout > 0) {
+			request.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+		}
+		return timeout;
+	}
+
+	protected static boolean isAsync(Method method) {
+		Class<?> returnType = method.getReturnType();
+		return returnType == CompletableFuture.class || returnType == CompletionStage.class;
+	}
+
+	/**
+	 * e.g. String for CompletableFuture&lt;String&gt;, Object if the type argument is not a class.
+	 */
+	protected static Class<?> getAsyncResultType(Method method) {
+		Type type = method.getGenericReturnType();
+		if (type instanceof ParameterizedType) {
+			Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+			if (argument instanceof Class) {
+				return (Class<?>) argument;
+			}
+			if (argument instanceof ParameterizedType) {
+				return (Class<?>) ((ParameterizedType) argument).getRawType();
+			}
 		}
-		return null;
+		return Object.class;
 	}
 
 }
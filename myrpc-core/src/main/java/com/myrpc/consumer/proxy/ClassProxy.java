@@ -10,4 +10,6 @@ public interface ClassProxy {
 
 	<T> T newInstance(final Class<T> inf);
 
+	void destroy();
+
 }
@@ -1,5 +1,6 @@
 package com.myrpc.consumer.proxy.jdk;
 
+import com.myrpc.common.ReflectUtils;
 import com.myrpc.consumer.proxy.AbstractProxy;
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.model.RpcRequest;
@@ -9,7 +10,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
-import java.util.UUID;
+import java.util.HashMap;
+import java.util.Map;
 
 @RpcComponent(name = "jdk")
 public class JdkProxyProvider extends AbstractProxy {
@@ -18,15 +20,28 @@ public class JdkProxyProvider extends AbstractProxy {
 
 	@Override
 	public <T> T newInstance(Class<T> inf) {
+		// per method metadata, computed once per proxy
+		final Map<Method, String> methodKeys = new HashMap<Method, String>();
+		final Map<Method, Class<?>> asyncResultTypes = new HashMap<Method, Class<?>>();
+		for (Method method : inf.getMethods()) {
+			methodKeys.put(method, ReflectUtils.getMethodKey(method.getDeclaringClass().getName(), method));
+			if (isAsync(method)) {
+				asyncResultTypes.put(method, getAsyncResultType(method));
+			}
+		}
 		return (T) Reflection.newProxy(inf, new AbstractInvocationHandler() {
 			@Override
 			protected Object handleInvocation(Object proxy, Method method, Object[] args) {
 				RpcRequest request = new RpcRequest();
-				request.setRequestId(UUID.randomUUID().toString());
 				request.setInterfaceName(method.getDeclaringClass().getName());
 				request.setMethodName(method.getName());
 				request.setParameterTypes(method.getParameterTypes());
 				request.setParameters(args);
+				request.setMethodKey(methodKeys.get(method));
+				Class<?> asyncResultType = asyncResultTypes.get(method);
+				if (asyncResultType != null) {
+					return invokeAsync(request, asyncResultType);
+				}
 				return JdkProxyProvider.super.invoke(request, method.getReturnType());
 			}
 		});
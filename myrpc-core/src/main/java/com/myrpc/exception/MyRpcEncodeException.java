@@ -0,0 +1,18 @@
+package com.myrpc.exception;
+
+/**
+ * A request or response that could not be serialized, the connection is fine and the call it belongs to can be failed alone.
+ */
+public class MyRpcEncodeException extends MyRpcSerializeException {
+
+	private final long requestId;
+
+	public MyRpcEncodeException(long requestId, String message, Throwable cause) {
+		super(message, cause);
+		this.requestId = requestId;
+	}
+
+	public long getRequestId() {
+		return requestId;
+	}
+}
@@ -0,0 +1,23 @@
+package com.myrpc.exception;
+
+/**
+ * The provider shed the request before running it, so it is safe to send it to another provider.
+ */
+public class MyRpcOverloadException extends RuntimeException {
+
+	public MyRpcOverloadException() {
+		super();
+	}
+
+	public MyRpcOverloadException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public MyRpcOverloadException(String message) {
+		super(message);
+	}
+
+	public MyRpcOverloadException(Throwable cause) {
+		super(cause);
+	}
+}
@@ -14,6 +14,8 @@ public class ExtensionLoader<T> {
 	private static Map<Class<?>, ExtensionLoader<?>> extensionLoaders = new ConcurrentHashMap<>();
 	private Map<String, T> singletonInstances = new ConcurrentHashMap<>();
 	protected Map<String, Class<T>> extensionClasses = new ConcurrentHashMap<>();
+	// extensions left out for a missing library, by name, to the class that is missing
+	private Map<String, String> missingClasses = new ConcurrentHashMap<>();
 
 	private ClassLoader classLoader;
 	private Class<T> type;
@@ -35,6 +37,11 @@ public class ExtensionLoader<T> {
 		if (name == null) {
 			return null;
 		}
+		String missingClass = missingClasses.get(name);
+		if (missingClass != null) {
+			throw new MyRpcRpcException(type.getSimpleName() + " " + name + " needs " + missingClass
+					+ " on the classpath, add the library that provides it");
+		}
 		try {
 			if (scope == Scope.SINGLETON) {
 				return getSingletonInstance(name);
@@ -98,7 +105,13 @@ public class ExtensionLoader<T> {
 					}
 					for (Annotation annotation : annotations) {
 						if (annotation instanceof RpcComponent) {
-							extensionClasses.put(((RpcComponent) annotation).name(), (Class<T>) clazz);
+							RpcComponent component = (RpcComponent) annotation;
+							String missingClass = findMissingClass(component.requires());
+							if (missingClass != null) {
+								missingClasses.put(component.name(), missingClass);
+							} else {
+								extensionClasses.put(component.name(), (Class<T>) clazz);
+							}
 						}
 					}
 
@@ -109,6 +122,17 @@ public class ExtensionLoader<T> {
 		}
 	}
 
+	private String findMissingClass(String[] classNames) {
+		for (String className : classNames) {
+			try {
+				Class.forName(className, false, classLoader);
+			} catch (ClassNotFoundException | LinkageError e) {
+				return className;
+			}
+		}
+		return null;
+	}
+
 	public static <T> ExtensionLoader<T> getExtensionLoader(Class<T> type) {
 		checkInterfaceType(type);
 
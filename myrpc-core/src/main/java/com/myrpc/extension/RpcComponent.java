@@ -8,4 +8,9 @@ import java.lang.annotation.*;
 public @interface RpcComponent {
 
 	String name();
+
+	/**
+	 * Classes of optional libraries the extension is built on, it is left out when one of them is not on the classpath.
+	 */
+	String[] requires() default {};
 }
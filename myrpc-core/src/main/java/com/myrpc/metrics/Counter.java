@@ -0,0 +1,20 @@
+package com.myrpc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+
+	private final LongAdder count = new LongAdder();
+
+	public void inc() {
+		count.increment();
+	}
+
+	public void inc(long n) {
+		count.add(n);
+	}
+
+	public long count() {
+		return count.sum();
+	}
+}
@@ -0,0 +1,6 @@
+package com.myrpc.metrics;
+
+public interface Gauge {
+
+	Number value();
+}
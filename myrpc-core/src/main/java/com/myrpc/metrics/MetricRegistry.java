@@ -0,0 +1,68 @@
+package com.myrpc.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process wide counters and gauges, read them with {@link #snapshot()} or export them from there.
+ */
+public final class MetricRegistry {
+
+	private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+	private MetricRegistry() {
+	}
+
+	public static Counter counter(String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			counter = new Counter();
+			Counter old = counters.putIfAbsent(name, counter);
+			if (old != null) {
+				counter = old;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * The first gauge registered under a name wins.
+	 */
+	public static void gauge(String name, Gauge gauge) {
+		gauges.putIfAbsent(name, gauge);
+	}
+
+	/**
+	 * Registers gauge in place of any earlier one under name, for a source that is rebuilt, e.g. when a service is republished.
+	 */
+	public static void replaceGauge(String name, Gauge gauge) {
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * Ratio of two counters, 0 while the divisor is still 0.
+	 */
+	public static void ratio(String name, final Counter dividend, final Counter divisor) {
+		gauge(name, new Gauge() {
+			@Override
+			public Number value() {
+				long d = divisor.count();
+				return d == 0 ? 0D : (double) dividend.count() / d;
+			}
+		});
+	}
+
+	public static Map<String, Number> snapshot() {
+		Map<String, Number> snapshot = new TreeMap<>();
+		for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().count());
+		}
+		for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().value());
+		}
+		return snapshot;
+	}
+}
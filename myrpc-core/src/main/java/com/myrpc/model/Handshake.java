@@ -0,0 +1,47 @@
+package com.myrpc.model;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+public class Handshake implements Serializable {
+
+	private static final long serialVersionUID = 3350181270366914386L;
+	private Map<String, Integer> services;
+	private Map<String, Integer> methods;
+	// offered by the consumer in order of preference, the provider answers with the one it picked or none
+	private List<String> compressions;
+	private String compression;
+
+	public Map<String, Integer> getServices() {
+		return services;
+	}
+
+	public void setServices(Map<String, Integer> services) {
+		this.services = services;
+	}
+
+	public Map<String, Integer> getMethods() {
+		return methods;
+	}
+
+	public void setMethods(Map<String, Integer> methods) {
+		this.methods = methods;
+	}
+
+	public List<String> getCompressions() {
+		return compressions;
+	}
+
+	public void setCompressions(List<String> compressions) {
+		this.compressions = compressions;
+	}
+
+	public String getCompression() {
+		return compression;
+	}
+
+	public void setCompression(String compression) {
+		this.compression = compression;
+	}
+}
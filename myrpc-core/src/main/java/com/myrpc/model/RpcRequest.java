@@ -5,17 +5,26 @@ import java.io.Serializable;
 public class RpcRequest implements Serializable {
 
 	private static final long serialVersionUID = -865929691710728615L;
-	private String requestId;
+	private transient long requestId;
 	private String interfaceName;
 	private String methodName;
 	private Class<?>[] parameterTypes;
 	private Object[] parameters;
+	private int serviceId;
+	private int methodId;
+	// budget of the call in milliseconds as the consumer saw it when sending, 0 for none
+	private int timeout;
+	private transient String methodKey;
+	// the parameter types of a compact request, which does not send them, for serializations that write arguments by type
+	private transient Class<?>[] declaredParameterTypes;
+	private transient long receiveTime;
+	private transient long deadline;
 
-	public String getRequestId() {
+	public long getRequestId() {
 		return requestId;
 	}
 
-	public void setRequestId(String requestId) {
+	public void setRequestId(long requestId) {
 		this.requestId = requestId;
 	}
 
@@ -50,4 +59,67 @@ public class RpcRequest implements Serializable {
 	public void setParameters(Object[] parameters) {
 		this.parameters = parameters;
 	}
+
+	public int getServiceId() {
+		return serviceId;
+	}
+
+	public void setServiceId(int serviceId) {
+		this.serviceId = serviceId;
+	}
+
+	public int getMethodId() {
+		return methodId;
+	}
+
+	public void setMethodId(int methodId) {
+		this.methodId = methodId;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(int timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * System.nanoTime() when the provider read the request off the connection.
+	 */
+	public long getReceiveTime() {
+		return receiveTime;
+	}
+
+	public void setReceiveTime(long receiveTime) {
+		this.receiveTime = receiveTime;
+	}
+
+	/**
+	 * System.nanoTime() after which the consumer no longer waits for the response, 0 for none. The consumer sets it
+	 * before sending, the provider from the timeout when the request arrives.
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	public String getMethodKey() {
+		return methodKey;
+	}
+
+	public void setMethodKey(String methodKey) {
+		this.methodKey = methodKey;
+	}
+
+	public Class<?>[] getDeclaredParameterTypes() {
+		return declaredParameterTypes;
+	}
+
+	public void setDeclaredParameterTypes(Class<?>[] declaredParameterTypes) {
+		this.declaredParameterTypes = declaredParameterTypes;
+	}
 }
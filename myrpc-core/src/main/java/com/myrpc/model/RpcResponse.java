@@ -5,16 +5,18 @@ import java.io.Serializable;
 public class RpcResponse implements Serializable {
 
 	private static final long serialVersionUID = -2638927263470157485L;
-	private String requestId;
+	private transient long requestId;
 	private Exception error;
 	private Object result;
 	private long processTime;
+	// carried in the frame flags, an overloaded response has no body worth reading
+	private transient boolean overloaded;
 
-	public String getRequestId() {
+	public long getRequestId() {
 		return requestId;
 	}
 
-	public void setRequestId(String requestId) {
+	public void setRequestId(long requestId) {
 		this.requestId = requestId;
 	}
 
@@ -34,6 +36,14 @@ public class RpcResponse implements Serializable {
 		this.result = result;
 	}
 
+	public boolean isOverloaded() {
+		return overloaded;
+	}
+
+	public void setOverloaded(boolean overloaded) {
+		this.overloaded = overloaded;
+	}
+
 	public long getProcessTime() {
 		return processTime;
 	}
@@ -0,0 +1,64 @@
+package com.myrpc.rpc;
+
+import com.myrpc.concurrent.CoDel;
+import com.myrpc.metrics.Counter;
+import com.myrpc.metrics.MetricRegistry;
+import com.myrpc.model.RpcRequest;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Decides, when a request leaves the queue of its pool, whether running it is still worth it. Requests whose consumer
+ * has given up are dropped, and requests are shed while the pool's queue delay says it is overloaded.
+ */
+public class AdmissionControl {
+
+	private final int targetMillis;
+	private final int intervalMillis;
+	private final ConcurrentMap<Executor, CoDel> coDels = new ConcurrentHashMap<>();
+	private final Counter expired = MetricRegistry.counter("server.request.expired");
+	private final Counter shed = MetricRegistry.counter("server.request.shed");
+
+	/**
+	 * @param targetMillis acceptable queue delay, negative turns shedding off
+	 */
+	public AdmissionControl(int targetMillis, int intervalMillis) {
+		this.targetMillis = targetMillis;
+		this.intervalMillis = intervalMillis;
+	}
+
+	/**
+	 * The deadline is counted from when the provider received the request, time on the wire is not known here.
+	 */
+	public boolean isExpired(RpcRequest request, long now) {
+		if (request.getDeadline() != 0 && now - request.getDeadline() >= 0) {
+			expired.inc();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param executor the pool the request was queued on
+	 */
+	public boolean shouldShed(Executor executor, RpcRequest request, long now) {
+		if (targetMillis < 0) {
+			return false;
+		}
+		CoDel coDel = coDels.get(executor);
+		if (coDel == null) {
+			coDel = new CoDel(targetMillis, intervalMillis);
+			CoDel old = coDels.putIfAbsent(executor, coDel);
+			if (old != null) {
+				coDel = old;
+			}
+		}
+		if (coDel.shouldDrop(now - request.getReceiveTime())) {
+			shed.inc();
+			return true;
+		}
+		return false;
+	}
+}
@@ -63,7 +63,7 @@ public class DefaultServer implements Server {
 	public void publish(ServiceConfig serviceConfig) {
 		if (!currentSerives.containsKey(serviceConfig.url().toFullStr())) {
 			registry.register(serviceConfig.url());
-			instanceFactory.setInstance(serviceConfig.getInterface(), serviceConfig.getRef());
+			instanceFactory.setInstance(serviceConfig.getInterface(), serviceConfig.getRef(), serviceConfig.url());
 			currentSerives.put(serviceConfig.url().toFullStr(), serviceConfig);
 		}
 	}
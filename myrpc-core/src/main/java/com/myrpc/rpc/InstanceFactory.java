@@ -1,12 +1,25 @@
 package com.myrpc.rpc;
 
-import java.lang.reflect.Method;
+import com.myrpc.config.URL;
+import com.myrpc.model.Handshake;
 
 public interface InstanceFactory {
 
 	void setInstance(String infName, Object obj);
 
+	/**
+	 * @param url the service url, carries the service and method level settings
+	 */
+	void setInstance(String infName, Object obj, URL url);
+
 	Object getInstance(String infName);
 
-	Method getMethod(String infName, String methodName);
+	/**
+	 * @param methodKey see {@link com.myrpc.common.ReflectUtils#getMethodKey}
+	 */
+	MethodInvoker getInvoker(String methodKey);
+
+	MethodInvoker getInvoker(int serviceId, int methodId);
+
+	Handshake getDictionary();
 }
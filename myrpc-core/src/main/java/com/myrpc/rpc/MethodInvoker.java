@@ -0,0 +1,58 @@
+package com.myrpc.rpc;
+
+import com.myrpc.concurrent.Bulkhead;
+import net.sf.cglib.reflect.FastMethod;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+/**
+ * A published method bound to its service instance, the cglib FastMethod is generated once at publish time.
+ */
+public class MethodInvoker {
+
+	private final String interfaceName;
+	private final Method method;
+	private final Object instance;
+	private final FastMethod fastMethod;
+	private final Executor executor;
+	private final Bulkhead bulkhead;
+
+	/**
+	 * @param executor the service or method level pool, null to run on the acceptor's pool
+	 * @param bulkhead the service or method level limit, null for none
+	 */
+	public MethodInvoker(String interfaceName, Method method, Object instance, FastMethod fastMethod, Executor executor, Bulkhead bulkhead) {
+		this.interfaceName = interfaceName;
+		this.method = method;
+		this.instance = instance;
+		this.fastMethod = fastMethod;
+		this.executor = executor;
+		this.bulkhead = bulkhead;
+	}
+
+	public Object invoke(Object[] parameters) throws InvocationTargetException {
+		return fastMethod.invoke(instance, parameters);
+	}
+
+	public String getInterfaceName() {
+		return interfaceName;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public Object getInstance() {
+		return instance;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	public Bulkhead getBulkhead() {
+		return bulkhead;
+	}
+}
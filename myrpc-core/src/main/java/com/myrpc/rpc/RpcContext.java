@@ -1,9 +1,12 @@
 package com.myrpc.rpc;
 
 import com.alibaba.ttl.TransmittableThreadLocal;
+import com.myrpc.exception.MyRpcTimeOutException;
 import com.myrpc.model.RpcRequest;
 import com.myrpc.model.RpcResponse;
 
+import java.util.concurrent.TimeUnit;
+
 public class RpcContext {
 
 	private static TransmittableThreadLocal<RpcContext> LOCAL_CONTEXT = new TransmittableThreadLocal<>();
@@ -35,6 +38,50 @@ public class RpcContext {
 		LOCAL_CONTEXT.remove();
 	}
 
+	/**
+	 * The timeout of a call made now from this thread, the configured one cut down to what remains of the request
+	 * being served, so nested calls never outlive their caller.
+	 *
+	 * @param timeout configured timeout in milliseconds, 0 for none
+	 * @throws MyRpcTimeOutException if the request being served has already expired
+	 */
+	public static long getTimeout(long timeout) {
+		RpcContext context = getContext();
+		if (context == null || context.getDeadline() == 0) {
+			return timeout;
+		}
+		long remaining = context.getRemainingMillis();
+		if (remaining <= 0) {
+			throw new MyRpcTimeOutException("Deadline of request " + context.getRequesterId() + " has passed, nested call not sent");
+		}
+		return timeout > 0 ? Math.min(timeout, remaining) : remaining;
+	}
+
+	/**
+	 * System.nanoTime() after which the consumer of the current request gives up, 0 if it waits forever.
+	 */
+	public long getDeadline() {
+		return request == null ? 0 : request.getDeadline();
+	}
+
+	/**
+	 * Milliseconds left before the consumer gives up, Long.MAX_VALUE without a deadline.
+	 */
+	public long getRemainingMillis() {
+		long deadline = getDeadline();
+		if (deadline == 0) {
+			return Long.MAX_VALUE;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+	}
+
+	/**
+	 * Long running providers can check this and stop work nobody is waiting for.
+	 */
+	public boolean isExpired() {
+		return getDeadline() != 0 && getDeadline() - System.nanoTime() <= 0;
+	}
+
 	public String getRequesterId() {
 		if (clientRequesterId != null) {
 			return clientRequesterId;
@@ -1,27 +1,156 @@
 package com.myrpc.rpc.netty;
 
+import com.myrpc.common.ReflectUtils;
+import com.myrpc.common.RpcConstants;
+import com.myrpc.concurrent.Bulkhead;
+import com.myrpc.concurrent.ExecutorRepository;
+import com.myrpc.config.URL;
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.exception.MyRpcRpcException;
+import com.myrpc.model.Handshake;
 import com.myrpc.rpc.InstanceFactory;
+import com.myrpc.rpc.MethodInvoker;
+import net.sf.cglib.reflect.FastClass;
+import net.sf.cglib.reflect.FastMethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 @RpcComponent(name = "netty")
 public class NettyInstanceFatory implements InstanceFactory {
 
 	private final static Logger logger = LoggerFactory.getLogger(NettyInstanceFatory.class);
 
-	private Map<String, Object> instances = new HashMap<String, Object>();
+	private Map<String, Object> instances = new ConcurrentHashMap<String, Object>();
 
-	private Map<String, Map<String, Method>> methodMap = new HashMap<String, Map<String, Method>>();
+	private Map<String, MethodInvoker> invokers = new ConcurrentHashMap<String, MethodInvoker>();
+
+	// index 0 is reserved, an id of 0 on the wire means "not negotiated"
+	private volatile String[] serviceNames = new String[1];
+
+	private volatile MethodInvoker[][] serviceInvokers = new MethodInvoker[1][];
+
+	private volatile Handshake dictionary = newDictionary(serviceNames, serviceInvokers);
 
 	@Override
 	public void setInstance(String infName, Object obj) {
+		setInstance(infName, obj, null);
+	}
+
+	@Override
+	public synchronized void setInstance(String infName, Object obj, URL url) {
+		MethodInvoker[] methodInvokers = newInvokers(infName, obj, url);
 		instances.put(infName, obj);
+		for (MethodInvoker invoker : methodInvokers) {
+			invokers.put(ReflectUtils.getMethodKey(infName, invoker.getMethod()), invoker);
+		}
+
+		int serviceId = Arrays.asList(serviceNames).indexOf(infName);
+		if (serviceId > 0) {
+			// republished with a new instance, keep the ids already handed out
+			MethodInvoker[][] newServiceInvokers = serviceInvokers.clone();
+			newServiceInvokers[serviceId] = methodInvokers;
+			this.serviceInvokers = newServiceInvokers;
+			return;
+		}
+		String[] newServiceNames = Arrays.copyOf(serviceNames, serviceNames.length + 1);
+		MethodInvoker[][] newServiceInvokers = Arrays.copyOf(serviceInvokers, serviceInvokers.length + 1);
+		newServiceNames[newServiceNames.length - 1] = infName;
+		newServiceInvokers[newServiceInvokers.length - 1] = methodInvokers;
+
+		this.dictionary = newDictionary(newServiceNames, newServiceInvokers);
+		this.serviceInvokers = newServiceInvokers;
+		this.serviceNames = newServiceNames;
+	}
+
+	private static MethodInvoker[] newInvokers(final String infName, Object obj, URL url) {
+		Method[] methods;
+		try {
+			methods = Class.forName(infName, true, obj.getClass().getClassLoader()).getMethods();
+		} catch (ClassNotFoundException e) {
+			throw new MyRpcRpcException(e.getMessage(), e);
+		}
+		// sort so that a provider hands out the same ids after a restart
+		Arrays.sort(methods, new Comparator<Method>() {
+			@Override
+			public int compare(Method m1, Method m2) {
+				return ReflectUtils.getMethodKey(infName, m1).compareTo(ReflectUtils.getMethodKey(infName, m2));
+			}
+		});
+
+		FastClass fastClass = FastClass.create(obj.getClass());
+		MethodInvoker[] methodInvokers = new MethodInvoker[methods.length];
+		Map<String, Bulkhead> bulkheads = new HashMap<>();
+		for (int i = 0; i < methods.length; i++) {
+			FastMethod fastMethod = fastClass.getMethod(methods[i].getName(), methods[i].getParameterTypes());
+			methodInvokers[i] = new MethodInvoker(infName, methods[i], obj, fastMethod, getExecutor(url, infName, methods[i]),
+					getBulkhead(url, infName, methods[i], bulkheads));
+		}
+		logger.debug("Created {} invokers for {}", methodInvokers.length, infName);
+		return methodInvokers;
+	}
+
+	/**
+	 * Method settings win over service settings, unset values fall back to the next level up to the protocol.
+	 */
+	private static Executor getExecutor(URL url, String infName, Method method) {
+		if (url == null) {
+			return null;
+		}
+		String threadpool = url.getMethodParameter(method.getName(), RpcConstants.THREADPOOL_KEY);
+		String threads = url.getMethodParameter(method.getName(), RpcConstants.THREADS_KEY);
+		String name = infName + "." + method.getName();
+		if (threadpool == null && threads == null) {
+			threadpool = url.getParameter(RpcConstants.SERVICE_THREADPOOL_KEY);
+			threads = url.getParameter(RpcConstants.SERVICE_THREADS_KEY);
+			name = infName;
+			if (threadpool == null && threads == null) {
+				return null;
+			}
+		}
+		if (threadpool == null) {
+			threadpool = getVal(url.getParameter(RpcConstants.SERVICE_THREADPOOL_KEY), url.getParameter(RpcConstants.THREADPOOL_KEY));
+		}
+		if (threads == null) {
+			threads = getVal(url.getParameter(RpcConstants.SERVICE_THREADS_KEY), url.getParameter(RpcConstants.THREADS_KEY));
+		}
+		return ExecutorRepository.getExecutor("myrpc-" + name, getVal(threadpool, RpcConstants.DEFAULT_THREADPOOL),
+				threads == null ? RpcConstants.DEFAULT_THREADS : Integer.parseInt(threads));
+	}
+
+	/**
+	 * A method limit covers all overloads of the name, a service limit is shared by every method without one of its own.
+	 */
+	private static Bulkhead getBulkhead(URL url, String infName, Method method, Map<String, Bulkhead> bulkheads) {
+		if (url == null) {
+			return null;
+		}
+		String executes = url.getMethodParameter(method.getName(), RpcConstants.EXECUTES_KEY);
+		String name = infName + "." + method.getName();
+		if (executes == null) {
+			executes = url.getParameter(RpcConstants.SERVICE_EXECUTES_KEY);
+			name = infName;
+			if (executes == null) {
+				return null;
+			}
+		}
+		Bulkhead bulkhead = bulkheads.get(name);
+		if (bulkhead == null) {
+			bulkhead = new Bulkhead(name, Integer.parseInt(executes));
+			bulkheads.put(name, bulkhead);
+		}
+		return bulkhead;
+	}
+
+	private static String getVal(String val, String defaultVal) {
+		return val != null ? val : defaultVal;
 	}
 
 	@Override
@@ -30,36 +159,39 @@ public class NettyInstanceFatory implements InstanceFactory {
 		return obj;
 	}
 
+	@Override
+	public MethodInvoker getInvoker(String methodKey) {
+		return invokers.get(methodKey);
+	}
 
-	public Method getMethod(String infName, String methodName) {
-		Map<String, Method> map = this.methodMap.get(infName);
-		if (map != null) {
-			return map.get(methodName);
-		} else {
-			synchronized (this) {
-				try {
-					Object obj = instances.get(infName);
-					Method[] infMethods = Class.forName(infName).getMethods();
-					Map<String, Method> methodMap = new HashMap<String, Method>();
-					for (Method infmth : infMethods) {
-						Method m = obj.getClass().getMethod(infmth.getName(), infmth.getParameterTypes());
-						String _methodName = m.getName();
-						if (methodMap.containsKey(_methodName)) {
-							logger.error("Duplicated method " + _methodName + " found in " + obj.getClass().getName());
-						} else {
-							methodMap.put(m.getName(), m);
-						}
-					}
-					this.methodMap.put(infName, methodMap);
-					return map.get(methodName);
-				} catch (NoSuchMethodException e1) {
-					throw new MyRpcRpcException(e1.getMessage(), e1);
-				} catch (ClassNotFoundException e) {
-					throw new MyRpcRpcException(e.getMessage(), e);
-				}
-			}
+	@Override
+	public MethodInvoker getInvoker(int serviceId, int methodId) {
+		MethodInvoker[][] methodInvokers = serviceInvokers;
+		if (serviceId <= 0 || serviceId >= methodInvokers.length) {
+			return null;
 		}
+		// method ids start at 1 as well
+		return methodId > 0 && methodId <= methodInvokers[serviceId].length ? methodInvokers[serviceId][methodId - 1] : null;
+	}
 
+	@Override
+	public Handshake getDictionary() {
+		return dictionary;
+	}
+
+	private static Handshake newDictionary(String[] serviceNames, MethodInvoker[][] serviceInvokers) {
+		Map<String, Integer> services = new HashMap<>();
+		Map<String, Integer> methods = new HashMap<>();
+		for (int serviceId = 1; serviceId < serviceNames.length; serviceId++) {
+			services.put(serviceNames[serviceId], serviceId);
+			for (int i = 0; i < serviceInvokers[serviceId].length; i++) {
+				methods.put(ReflectUtils.getMethodKey(serviceNames[serviceId], serviceInvokers[serviceId][i].getMethod()), i + 1);
+			}
+		}
+		Handshake dictionary = new Handshake();
+		dictionary.setServices(services);
+		dictionary.setMethods(methods);
+		return dictionary;
 	}
 
 }
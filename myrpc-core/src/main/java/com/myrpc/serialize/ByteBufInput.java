@@ -0,0 +1,53 @@
+package com.myrpc.serialize;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} over the readable bytes of whichever {@link ByteBuf} it was last pointed at, see {@link ByteBufOutput}.
+ */
+public final class ByteBufInput extends InputStream {
+
+	private ByteBuf buf;
+
+	public ByteBufInput wrap(ByteBuf buf) {
+		this.buf = buf;
+		return this;
+	}
+
+	public void release() {
+		this.buf = null;
+	}
+
+	@Override
+	public int read() {
+		return buf.isReadable() ? buf.readByte() & 0xff : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int readable = buf.readableBytes();
+		if (readable == 0) {
+			return -1;
+		}
+		len = Math.min(len, readable);
+		buf.readBytes(b, off, len);
+		return len;
+	}
+
+	@Override
+	public long skip(long n) {
+		int skipped = (int) Math.min(n, buf.readableBytes());
+		buf.skipBytes(skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buf.readableBytes();
+	}
+}
@@ -0,0 +1,36 @@
+package com.myrpc.serialize;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} over whichever {@link ByteBuf} it was last pointed at, kept per thread by the serializers instead of a
+ * new stream per message.
+ */
+public final class ByteBufOutput extends OutputStream {
+
+	private ByteBuf buf;
+
+	public ByteBufOutput wrap(ByteBuf buf) {
+		this.buf = buf;
+		return this;
+	}
+
+	/**
+	 * Drops the buffer so an idle thread does not keep it reachable.
+	 */
+	public void release() {
+		this.buf = null;
+	}
+
+	@Override
+	public void write(int b) {
+		buf.writeByte(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		buf.writeBytes(b, off, len);
+	}
+}
@@ -2,13 +2,30 @@ package com.myrpc.serialize.Jdk;
 
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.serialize.ByteBufInput;
+import com.myrpc.serialize.ByteBufOutput;
 import com.myrpc.serialize.Serialize;
+import io.netty.buffer.ByteBuf;
 
 import java.io.*;
 
 @RpcComponent(name = "jdk")
 public class JdkSerialize implements Serialize {
 
+	// object streams carry a header each and cannot be reset for the next message, only the buffer adapters are reused
+	private static final ThreadLocal<ByteBufOutput> outputs = new ThreadLocal<ByteBufOutput>() {
+		@Override
+		protected ByteBufOutput initialValue() {
+			return new ByteBufOutput();
+		}
+	};
+	private static final ThreadLocal<ByteBufInput> inputs = new ThreadLocal<ByteBufInput>() {
+		@Override
+		protected ByteBufInput initialValue() {
+			return new ByteBufInput();
+		}
+	};
+
 	@Override
 	public <T> byte[] serialize(T object) {
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
@@ -34,4 +51,33 @@ public class JdkSerialize implements Serialize {
 			throw new MyRpcSerializeException(e.getMessage(), e);
 		}
 	}
+
+	@Override
+	public <T> void serialize(T object, ByteBuf out) {
+		ByteBufOutput output = outputs.get();
+		try {
+			ObjectOutputStream os = new ObjectOutputStream(output.wrap(out));
+			os.writeObject(object);
+			os.flush();
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			output.release();
+		}
+	}
+
+	@Override
+	public <T> T deserialize(ByteBuf in, Class<T>... cls) {
+		ByteBufInput input = inputs.get();
+		try {
+			ObjectInputStream is = new ObjectInputStream(input.wrap(in));
+			return (T) is.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			input.release();
+		}
+	}
 }
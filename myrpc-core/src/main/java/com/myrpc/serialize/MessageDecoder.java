@@ -1,43 +1,157 @@
 package com.myrpc.serialize;
 
+import com.google.common.base.Throwables;
+import com.myrpc.compress.CompressType;
+import com.myrpc.compress.FrameCompressor;
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.extension.Scope;
+import com.myrpc.model.RpcRequest;
+import com.myrpc.model.RpcResponse;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
+import static com.myrpc.serialize.ProtocolHeader.*;
+
 public class MessageDecoder extends ByteToMessageDecoder {
 
-	private Serialize serialize;
+	private static final Logger logger = LoggerFactory.getLogger(MessageDecoder.class);
 
 	private Class<?> genericClass;
 
-	public MessageDecoder(Serialize serialize, Class<?> genericClass) {
-		this.serialize = serialize;
+	private final Serialize[] serializes = new Serialize[Byte.MAX_VALUE + 1];
+
+	private final FrameCompressor[] compressors = new FrameCompressor[1 << (8 - COMPRESS_SHIFT)];
+
+	public MessageDecoder(Class<?> genericClass) {
 		this.genericClass = genericClass;
 	}
 
 	@Override
 	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-		if (in.readableBytes() < 4) {
+		if (in.readableBytes() < HEADER_LENGTH) {
 			return;
 		}
 
-		in.markReaderIndex();
-		int messageLength = in.readInt();
+		int readerIndex = in.readerIndex();
+		short magic = in.getShort(readerIndex);
+		byte version = in.getByte(readerIndex + 2);
+		int bodyLength = in.getInt(readerIndex + BODY_LENGTH_OFFSET);
 
-		if (messageLength < 0) {
+		if (magic != MAGIC || version != VERSION || bodyLength < 0 || bodyLength > MAX_BODY_LENGTH) {
+			logger.error("Illegal frame header, magic={} version={} bodyLength={}, close channel {}", magic, version, bodyLength, ctx.channel());
+			in.skipBytes(in.readableBytes());
 			ctx.close();
+			return;
+		}
+
+		if (in.readableBytes() < HEADER_LENGTH + bodyLength) {
+			return;
+		}
+
+		in.skipBytes(3);
+		byte flags = in.readByte();
+		byte serializeId = in.readByte();
+		byte messageType = in.readByte();
+		long requestId = in.readLong();
+		in.skipBytes(4);
+		ByteBuf body = in.readSlice(bodyLength);
+
+		Class<?> bodyClass = bodyClass(messageType);
+		if (bodyClass != genericClass && messageType != HANDSHAKE) {
+			reject(ctx, out, requestId, "Unexpected message type " + messageType);
+			return;
+		}
+
+		Serialize serialize = getSerialize(serializeId);
+		if (serialize == null) {
+			reject(ctx, out, requestId, "Unsupported serialize id " + serializeId);
+			return;
 		}
 
-		if (in.readableBytes() < messageLength) {
-			in.resetReaderIndex();
+		Object message;
+		try {
+			if ((flags & FLAG_COMPRESSED) != 0) {
+				FrameCompressor compressor = getCompressor((flags & 0xff) >>> COMPRESS_SHIFT);
+				if (compressor == null) {
+					reject(ctx, out, requestId, "Unsupported compression id " + ((flags & 0xff) >>> COMPRESS_SHIFT));
+					return;
+				}
+				ByteBuf raw = compressor.decompress(ctx.alloc(), body, MAX_BODY_LENGTH);
+				try {
+					message = serialize.deserialize(raw, bodyClass);
+				} finally {
+					raw.release();
+				}
+			} else {
+				message = serialize.deserialize(body, bodyClass);
+			}
+		} catch (RuntimeException e) {
+			if (messageType == HANDSHAKE) {
+				// without it the connection is of no use
+				throw e;
+			}
+			// unknown class, version skew or a corrupt block, only this frame is lost and it was consumed whole
+			reject(ctx, out, requestId, "Failed to deserialize " + bodyClass.getSimpleName() + ": " + Throwables.getRootCause(e));
 			return;
 		}
-		byte[] data = new byte[messageLength];
-		in.readBytes(data);
+		if (message instanceof RpcRequest) {
+			((RpcRequest) message).setRequestId(requestId);
+		} else if (message instanceof RpcResponse) {
+			((RpcResponse) message).setRequestId(requestId);
+			((RpcResponse) message).setOverloaded((flags & FLAG_OVERLOADED) != 0);
+		}
+		out.add(message);
+	}
+
+	/**
+	 * A frame that can not be read fails its request instead of leaving it to time out: a consumer hands the handler an
+	 * error response for it, a provider answers it with one. The connection stays open, the next frame is still in sync.
+	 */
+	private void reject(ChannelHandlerContext ctx, List<Object> out, long requestId, String reason) {
+		logger.warn("{} (request id {}) from {}", reason, requestId, ctx.channel().remoteAddress());
+		RpcResponse response = new RpcResponse();
+		response.setRequestId(requestId);
+		response.setError(new MyRpcSerializeException(reason + ", request id " + requestId));
+		if (genericClass == RpcResponse.class) {
+			out.add(response);
+		} else {
+			// from the tail, through the encoder behind this decoder
+			ctx.channel().writeAndFlush(response);
+		}
+	}
+
+	private FrameCompressor getCompressor(int compressId) {
+		FrameCompressor compressor = compressors[compressId];
+		if (compressor == null) {
+			CompressType compressType = CompressType.parse((byte) compressId);
+			if (compressType == null) {
+				return null;
+			}
+			compressor = FrameCompressor.get(compressType);
+			compressors[compressId] = compressor;
+		}
+		return compressor;
+	}
 
-		Object obj = serialize.deserialize(data, genericClass);
-		out.add(obj);
+	private Serialize getSerialize(byte serializeId) {
+		if (serializeId < 0) {
+			return null;
+		}
+		Serialize serialize = serializes[serializeId];
+		if (serialize == null) {
+			SerializeType serializeType = SerializeType.parse(serializeId);
+			if (serializeType == null) {
+				return null;
+			}
+			serialize = ExtensionLoader.getExtension(Serialize.class, serializeType.getName(), Scope.SINGLETON);
+			serializes[serializeId] = serialize;
+		}
+		return serialize;
 	}
 }
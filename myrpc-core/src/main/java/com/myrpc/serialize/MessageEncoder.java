@@ -1,26 +1,118 @@
 package com.myrpc.serialize;
 
+import com.myrpc.compress.CompressType;
+import com.myrpc.compress.FrameCompressor;
+import com.myrpc.exception.MyRpcEncodeException;
+import com.myrpc.exception.MyRpcServerRpcException;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.extension.Scope;
+import com.myrpc.model.Handshake;
+import com.myrpc.model.RpcRequest;
+import com.myrpc.model.RpcResponse;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.myrpc.serialize.ProtocolHeader.*;
 
 public class MessageEncoder extends MessageToByteEncoder<Object> {
 
+	private static final Logger logger = LoggerFactory.getLogger(MessageEncoder.class);
+
+	private SerializeType serializeType;
+
 	private Serialize serialize;
 
-	private Class<?> genericClass;
+	private volatile FrameCompressor compressor;
+
+	private volatile int compressThreshold;
 
-	public MessageEncoder(Serialize serialize, Class<?> genericClass) {
-		this.serialize = serialize;
-		this.genericClass = genericClass;
+	public MessageEncoder(SerializeType serializeType) {
+		this.serializeType = serializeType;
+		this.serialize = ExtensionLoader.getExtension(Serialize.class, serializeType.getName(), Scope.SINGLETON);
+	}
+
+	/**
+	 * Compress request and response bodies of at least threshold bytes from now on, once the handshake agreed on a codec.
+	 */
+	public void compress(CompressType compressType, int threshold) {
+		this.compressThreshold = threshold;
+		this.compressor = FrameCompressor.get(compressType);
+	}
+
+	@Override
+	public boolean acceptOutboundMessage(Object msg) {
+		return msg instanceof RpcRequest || msg instanceof RpcResponse || msg instanceof Handshake;
 	}
 
 	@Override
 	protected void encode(ChannelHandlerContext ctx, Object in, ByteBuf out) throws Exception {
-		if (genericClass.isInstance(in)) {
-			byte[] data = serialize.serialize(in);
-			out.writeInt(data.length);
-			out.writeBytes(data);
+		byte messageType;
+		byte flags = 0;
+		long requestId;
+		if (in instanceof RpcRequest) {
+			messageType = REQUEST;
+			requestId = ((RpcRequest) in).getRequestId();
+		} else if (in instanceof RpcResponse) {
+			messageType = RESPONSE;
+			requestId = ((RpcResponse) in).getRequestId();
+			if (((RpcResponse) in).isOverloaded()) {
+				flags |= FLAG_OVERLOADED;
+			}
+		} else {
+			messageType = HANDSHAKE;
+			requestId = 0L;
+		}
+
+		int headerIndex = out.writerIndex();
+		try {
+			writeFrame(ctx, in, messageType, flags, requestId, out);
+		} catch (RuntimeException e) {
+			out.writerIndex(headerIndex);
+			if (messageType == REQUEST) {
+				// the connector handler fails the future of this request
+				throw new MyRpcEncodeException(requestId, "Failed to serialize request " + requestId + ": " + e.getMessage(), e);
+			}
+			if (messageType != RESPONSE) {
+				throw e;
+			}
+			// the consumer gets the failure instead of waiting out its timeout, by message only since the cause may not
+			// serialize either
+			logger.error("Failed to serialize response {}, answer with an error", requestId, e);
+			RpcResponse response = new RpcResponse();
+			response.setRequestId(requestId);
+			response.setError(new MyRpcServerRpcException("Failed to serialize response of request " + requestId + ": " + e));
+			writeFrame(ctx, response, RESPONSE, (byte) 0, requestId, out);
+		}
+	}
+
+	private void writeFrame(ChannelHandlerContext ctx, Object in, byte messageType, byte flags, long requestId, ByteBuf out) {
+		int headerIndex = out.writerIndex();
+		out.writeShort(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(flags);
+		out.writeByte(serializeType.getId());
+		out.writeByte(messageType);
+		out.writeLong(requestId);
+		out.writeInt(0);
+
+		// serialize in place and back-patch the body length
+		int bodyIndex = out.writerIndex();
+		serialize.serialize(in, out);
+		int bodyLength = out.writerIndex() - bodyIndex;
+		FrameCompressor compressor = this.compressor;
+		// handshakes stay raw, they are what a peer reads before it knows about compression
+		if (compressor != null && messageType != HANDSHAKE && bodyLength >= compressThreshold) {
+			ByteBuf compressed = compressor.compress(ctx.alloc(), out.slice(bodyIndex, bodyLength));
+			if (compressed != null) {
+				out.writerIndex(bodyIndex);
+				out.writeBytes(compressed);
+				compressed.release();
+				out.setByte(headerIndex + FLAGS_OFFSET, flags | FLAG_COMPRESSED | compressor.getType().getId() << COMPRESS_SHIFT);
+			}
 		}
+		out.setInt(headerIndex + BODY_LENGTH_OFFSET, out.writerIndex() - headerIndex - HEADER_LENGTH);
 	}
 }
@@ -0,0 +1,55 @@
+package com.myrpc.serialize;
+
+import com.myrpc.model.Handshake;
+import com.myrpc.model.RpcRequest;
+import com.myrpc.model.RpcResponse;
+
+/**
+ * Frame layout:
+ * <pre>
+ * +-------+---------+-------+-----------+------+------------+-------------+------+
+ * | magic | version | flags | serialize | type | request id | body length | body |
+ * |   2   |    1    |   1   |     1     |  1   |      8     |      4      |  ... |
+ * +-------+---------+-------+-----------+------+------------+-------------+------+
+ * </pre>
+ */
+public final class ProtocolHeader {
+
+	public static final short MAGIC = (short) 0xcafe;
+	public static final byte VERSION = 1;
+	public static final int HEADER_LENGTH = 18;
+	public static final int FLAGS_OFFSET = 3;
+	public static final int BODY_LENGTH_OFFSET = HEADER_LENGTH - 4;
+	public static final int MAX_BODY_LENGTH = 8 * 1024 * 1024;
+
+	public static final byte REQUEST = 1;
+	public static final byte RESPONSE = 2;
+	public static final byte HANDSHAKE = 3;
+
+	/**
+	 * Response flag, the provider shed the request without running it, the consumer may retry it elsewhere.
+	 */
+	public static final byte FLAG_OVERLOADED = 0x01;
+
+	/**
+	 * The body is compressed with the codec whose id is in the upper four bits of the flags, see
+	 * {@link com.myrpc.compress.FrameCompressor}.
+	 */
+	public static final byte FLAG_COMPRESSED = 0x02;
+	public static final int COMPRESS_SHIFT = 4;
+
+	public static Class<?> bodyClass(byte messageType) {
+		switch (messageType) {
+			case REQUEST:
+				return RpcRequest.class;
+			case RESPONSE:
+				return RpcResponse.class;
+			case HANDSHAKE:
+				return Handshake.class;
+			default:
+				return null;
+		}
+	}
+
+	private ProtocolHeader() {}
+}
@@ -1,8 +1,14 @@
 package com.myrpc.serialize;
 
+import io.netty.buffer.ByteBuf;
+
 public interface Serialize {
 
 	<T> byte[] serialize(T object);
 
 	<T> T deserialize(byte[] data, Class<T>... cls);
+
+	<T> void serialize(T object, ByteBuf out);
+
+	<T> T deserialize(ByteBuf in, Class<T>... cls);
 }
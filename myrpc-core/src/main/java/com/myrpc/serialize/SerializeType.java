@@ -0,0 +1,50 @@
+package com.myrpc.serialize;
+
+public enum SerializeType {
+
+	JDK((byte) 1, "jdk"),
+
+	HESSIAN((byte) 2, "hessian"),
+
+	PROTOSTUFF((byte) 3, "protostuff"),
+
+	HESSIAN2((byte) 4, "hessian2"),
+
+	PROTOSTUFF_TYPED((byte) 5, "protostuff-typed"),
+
+	KRYO((byte) 6, "kryo");
+
+	private final byte id;
+	private final String name;
+
+	SerializeType(byte id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	public byte getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public static SerializeType parse(String name) {
+		for (SerializeType s : values()) {
+			if (s.name.equalsIgnoreCase(name)) {
+				return s;
+			}
+		}
+		return null;
+	}
+
+	public static SerializeType parse(byte id) {
+		for (SerializeType s : values()) {
+			if (s.id == id) {
+				return s;
+			}
+		}
+		return null;
+	}
+}
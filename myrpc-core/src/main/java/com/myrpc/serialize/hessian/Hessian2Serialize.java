@@ -0,0 +1,115 @@
+package com.myrpc.serialize.hessian;
+
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.myrpc.extension.RpcComponent;
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.serialize.ByteBufInput;
+import com.myrpc.serialize.ByteBufOutput;
+import com.myrpc.serialize.Serialize;
+import io.netty.buffer.ByteBuf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Hessian 2 encoding, more compact than {@link HessianSerialize}: a class definition is written once per message and its
+ * instances refer to it by index, small numbers and short strings take a single byte.
+ */
+@RpcComponent(name = "hessian2")
+public class Hessian2Serialize implements Serialize {
+
+	private static final ThreadLocal<Streams> streams = new ThreadLocal<Streams>() {
+		@Override
+		protected Streams initialValue() {
+			return new Streams();
+		}
+	};
+
+	@Override
+	public <T> byte[] serialize(T object) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		Hessian2Output ho = new Hessian2Output(os);
+		ho.setSerializerFactory(HessianSerialize.serializerFactory);
+		try {
+			ho.writeObject(object);
+			ho.flush();
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		}
+		return os.toByteArray();
+	}
+
+	@Override
+	public <T> T deserialize(byte[] data, Class<T>... cls) {
+		Hessian2Input hi = new Hessian2Input(new ByteArrayInputStream(data));
+		hi.setSerializerFactory(HessianSerialize.serializerFactory);
+		try {
+			return (T) hi.readObject();
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public <T> void serialize(T object, ByteBuf out) {
+		Streams streams = Hessian2Serialize.streams.get();
+		// init clears the references and class definitions of the previous message but keeps the maps and the buffer
+		Hessian2Output ho = streams.hessian2Output;
+		ho.init(streams.output.wrap(out));
+		try {
+			ho.writeObject(object);
+			ho.flushBuffer();
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			streams.output.release();
+		}
+	}
+
+	@Override
+	public <T> T deserialize(ByteBuf in, Class<T>... cls) {
+		Streams streams = Hessian2Serialize.streams.get();
+		Hessian2Input hi = streams.hessian2Input;
+		hi.init(streams.input.wrap(in));
+		boolean read = false;
+		try {
+			T message = (T) hi.readObject();
+			read = true;
+			return message;
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			streams.input.release();
+			if (read) {
+				try {
+					hi.resetBuffer();
+				} catch (IllegalStateException e) {
+					// bytes after the object, the buffer is emptied all the same
+				}
+			} else {
+				// a message that failed half way may leave chunk state behind, start over with a fresh stream
+				streams.hessian2Input = Streams.newInput();
+			}
+		}
+	}
+
+	private static class Streams {
+
+		private final ByteBufOutput output = new ByteBufOutput();
+		private final ByteBufInput input = new ByteBufInput();
+		private final Hessian2Output hessian2Output = new Hessian2Output();
+		private Hessian2Input hessian2Input = newInput();
+
+		Streams() {
+			hessian2Output.setSerializerFactory(HessianSerialize.serializerFactory);
+		}
+
+		static Hessian2Input newInput() {
+			Hessian2Input hessian2Input = new Hessian2Input();
+			hessian2Input.setSerializerFactory(HessianSerialize.serializerFactory);
+			return hessian2Input;
+		}
+	}
+}
@@ -2,9 +2,13 @@ package com.myrpc.serialize.hessian;
 
 import com.caucho.hessian.io.HessianInput;
 import com.caucho.hessian.io.HessianOutput;
+import com.caucho.hessian.io.SerializerFactory;
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.serialize.ByteBufInput;
+import com.myrpc.serialize.ByteBufOutput;
 import com.myrpc.serialize.Serialize;
+import io.netty.buffer.ByteBuf;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -13,10 +17,21 @@ import java.io.IOException;
 @RpcComponent(name = "hessian")
 public class HessianSerialize implements Serialize {
 
+	// a stream without a factory builds its own and with it an empty serializer cache per message
+	static final SerializerFactory serializerFactory = new SerializerFactory();
+
+	private static final ThreadLocal<Streams> streams = new ThreadLocal<Streams>() {
+		@Override
+		protected Streams initialValue() {
+			return new Streams();
+		}
+	};
+
 	@Override
 	public <T> byte[] serialize(T object) {
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
 		HessianOutput ho = new HessianOutput(os);
+		ho.setSerializerFactory(serializerFactory);
 		try {
 			ho.writeObject(object);
 		} catch (IOException e) {
@@ -29,10 +44,56 @@ public class HessianSerialize implements Serialize {
 	public <T> T deserialize(byte[] data, Class<T>... cls) {
 		ByteArrayInputStream is = new ByteArrayInputStream(data);
 		HessianInput hi = new HessianInput(is);
+		hi.setSerializerFactory(serializerFactory);
+		try {
+			return (T) hi.readObject();
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public <T> void serialize(T object, ByteBuf out) {
+		Streams streams = HessianSerialize.streams.get();
+		HessianOutput ho = streams.hessianOutput;
+		streams.output.wrap(out);
+		try {
+			ho.writeObject(object);
+			ho.flush();
+		} catch (IOException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			ho.resetReferences();
+			streams.output.release();
+		}
+	}
+
+	@Override
+	public <T> T deserialize(ByteBuf in, Class<T>... cls) {
+		Streams streams = HessianSerialize.streams.get();
+		HessianInput hi = streams.hessianInput;
+		hi.init(streams.input.wrap(in));
 		try {
 			return (T) hi.readObject();
 		} catch (IOException e) {
 			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			hi.resetReferences();
+			streams.input.release();
+		}
+	}
+
+	private static class Streams {
+
+		private final ByteBufOutput output = new ByteBufOutput();
+		private final ByteBufInput input = new ByteBufInput();
+		// bound to output for good, so its reference map is cleared between messages rather than dropped
+		private final HessianOutput hessianOutput = new HessianOutput(output);
+		private final HessianInput hessianInput = new HessianInput();
+
+		Streams() {
+			hessianOutput.setSerializerFactory(serializerFactory);
+			hessianInput.setSerializerFactory(serializerFactory);
 		}
 	}
 }
@@ -0,0 +1,208 @@
+package com.myrpc.serialize.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.SerializerFactory;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import com.esotericsoftware.kryo.serializers.MapSerializer;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.extension.RpcComponent;
+import com.myrpc.model.Handshake;
+import com.myrpc.model.RpcRequest;
+import com.myrpc.model.RpcResponse;
+import com.myrpc.serialize.ByteBufOutput;
+import com.myrpc.serialize.Serialize;
+import io.netty.buffer.ByteBuf;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Kryo with the message classes and common containers registered under fixed ids, so both sides agree without sending class
+ * names, other classes are written by name. Reference tracking is off: a shared object is written once per reference and a
+ * cyclic graph cannot be sent, exceptions go through java serialization where their self-referencing cause is harmless.
+ * <p>
+ * Kryo instances are not thread safe, each call borrows one with its buffers from a pool, which also serves virtual threads
+ * that would each get their own thread local.
+ */
+@RpcComponent(name = "kryo", requires = "com.esotericsoftware.kryo.Kryo")
+public class KryoSerialize implements Serialize {
+
+	private static final byte[] EMPTY_BYTES = new byte[0];
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final Pool<Instance> instances = new Pool<Instance>(true, false, 256) {
+		@Override
+		protected Instance create() {
+			return new Instance();
+		}
+	};
+
+	private static Kryo newKryo() {
+		Kryo kryo = new Kryo();
+		kryo.setRegistrationRequired(false);
+		kryo.setReferences(false);
+		kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+		kryo.addDefaultSerializer(Throwable.class, JavaSerializer.class);
+		// keeps its key type, which kryo has no serializer for
+		kryo.addDefaultSerializer(EnumMap.class, JavaSerializer.class);
+		kryo.addDefaultSerializer(Collection.class, CopyFactory.INSTANCE);
+		kryo.addDefaultSerializer(Map.class, CopyFactory.INSTANCE);
+		// ids are part of the wire format, append only
+		kryo.register(RpcRequest.class, 20);
+		kryo.register(RpcResponse.class, 21);
+		kryo.register(Handshake.class, 22);
+		kryo.register(Class.class, 23);
+		kryo.register(Class[].class, 24);
+		kryo.register(Object[].class, 25);
+		kryo.register(HashMap.class, 26);
+		kryo.register(ArrayList.class, 27);
+		kryo.register(LinkedList.class, 28);
+		kryo.register(TreeMap.class, 29);
+		kryo.register(byte[].class, 30);
+		return kryo;
+	}
+
+	@Override
+	public <T> byte[] serialize(T object) {
+		Instance instance = instances.obtain();
+		Output output = new Output(Instance.BUFFER_SIZE, -1);
+		try {
+			instance.kryo.writeObject(output, object);
+			return output.toBytes();
+		} catch (KryoException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			instances.free(instance);
+		}
+	}
+
+	@Override
+	public <T> T deserialize(byte[] data, Class<T>... cls) {
+		Instance instance = instances.obtain();
+		try {
+			instance.input.setBuffer(data);
+			return instance.kryo.readObject(instance.input, cls[0]);
+		} catch (KryoException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			instance.input.setBuffer(EMPTY_BYTES);
+			instances.free(instance);
+		}
+	}
+
+	@Override
+	public <T> void serialize(T object, ByteBuf out) {
+		Instance instance = instances.obtain();
+		Output output = instance.output;
+		try {
+			// fills its own buffer and hands it to out in bulk
+			output.setOutputStream(instance.byteBufOutput.wrap(out));
+			instance.kryo.writeObject(output, object);
+			output.flush();
+		} catch (KryoException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			output.setOutputStream(null);
+			instance.byteBufOutput.release();
+			instances.free(instance);
+		}
+	}
+
+	@Override
+	public <T> T deserialize(ByteBuf in, Class<T>... cls) {
+		Instance instance = instances.obtain();
+		try {
+			T message;
+			if (in.hasArray()) {
+				Input input = instance.input;
+				input.setBuffer(in.array(), in.arrayOffset() + in.readerIndex(), in.readableBytes());
+				message = instance.kryo.readObject(input, cls[0]);
+				in.skipBytes(input.position() - in.arrayOffset() - in.readerIndex());
+			} else {
+				// read direct memory in place
+				ByteBufferInput input = instance.byteBufferInput;
+				input.setBuffer(in.nioBuffer());
+				int start = input.position();
+				message = instance.kryo.readObject(input, cls[0]);
+				in.skipBytes(input.position() - start);
+			}
+			return message;
+		} catch (KryoException e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			instance.input.setBuffer(EMPTY_BYTES);
+			instance.byteBufferInput.setBuffer(EMPTY_BUFFER);
+			instances.free(instance);
+		}
+	}
+
+	/**
+	 * Collections and maps kryo cannot rebuild element by element, unmodifiable views, Arrays.asList, Collections.nCopies and
+	 * the like, are read back as a plain list, set or map.
+	 */
+	private static class CopyFactory implements SerializerFactory<Serializer> {
+
+		static final CopyFactory INSTANCE = new CopyFactory();
+
+		@Override
+		public Serializer newSerializer(Kryo kryo, Class type) {
+			if (Map.class.isAssignableFrom(type)) {
+				return new MapSerializer<Map>() {
+					@Override
+					protected Map create(Kryo kryo, Input input, Class<? extends Map> type, int size) {
+						return new LinkedHashMap(Math.max(16, size * 4 / 3 + 1));
+					}
+				};
+			}
+			return new CollectionSerializer<Collection>() {
+				@Override
+				protected Collection create(Kryo kryo, Input input, Class<? extends Collection> type, int size) {
+					return Set.class.isAssignableFrom(type) ? new LinkedHashSet(Math.max(16, size * 4 / 3 + 1)) : new ArrayList(size);
+				}
+			};
+		}
+
+		@Override
+		public boolean isSupported(Class type) {
+			if (EnumSet.class.isAssignableFrom(type)) {
+				return false;
+			}
+			try {
+				type.getDeclaredConstructor();
+				return false;
+			} catch (NoSuchMethodException e) {
+				return true;
+			}
+		}
+	}
+
+	private static class Instance {
+
+		private static final int BUFFER_SIZE = 4096;
+
+		private final Kryo kryo = newKryo();
+		private final Output output = new Output(BUFFER_SIZE);
+		private final Input input = new Input();
+		private final ByteBufferInput byteBufferInput = new ByteBufferInput();
+		private final ByteBufOutput byteBufOutput = new ByteBufOutput();
+	}
+}
@@ -0,0 +1,258 @@
+package com.myrpc.serialize.protostuff;
+
+import com.dyuproject.protostuff.Input;
+import com.dyuproject.protostuff.Output;
+import com.dyuproject.protostuff.Schema;
+import com.dyuproject.protostuff.runtime.RuntimeSchema;
+import com.myrpc.common.RpcConstants;
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.extension.Scope;
+import com.myrpc.rpc.InstanceFactory;
+import com.myrpc.rpc.MethodInvoker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * How the arguments of one method signature are written by the protostuff-typed serialization. An argument whose value has
+ * exactly its declared type goes on the wire as the bare value or message, without a type name. Anything else, an interface,
+ * {@code Object}, a collection or a subclass, falls back to the polymorphic encoding of the plain protostuff serialization.
+ * <p>
+ * Schemas are built on the first request of a signature. A class protostuff can not map, one without fields say, is
+ * written the polymorphic way instead, so its bare form is never on the wire.
+ */
+public final class ArgumentSchema {
+
+	private static final Logger logger = LoggerFactory.getLogger(ArgumentSchema.class);
+	private static final ConcurrentMap<List<Class<?>>, ArgumentSchema> bySignature = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<Method, ArgumentSchema> byMethod = new ConcurrentHashMap<>();
+	private static final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+	private static final Schema<Argument> argumentSchema = RuntimeSchema.getSchema(Argument.class);
+
+	static {
+		for (Class<?> primitive : new Class<?>[] { boolean.class, byte.class, short.class, char.class, int.class, long.class, float.class,
+				double.class, void.class }) {
+			classes.put(primitive.getName(), primitive);
+		}
+	}
+
+	private enum Kind {
+		BOOLEAN, BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE, STRING, BYTES, MESSAGE, OBJECT
+	}
+
+	private final Class<?>[] types;
+	private final Kind[] kinds;
+	private final Schema[] schemas;
+
+	private ArgumentSchema(Class<?>[] types) {
+		this.types = types;
+		this.kinds = new Kind[types.length];
+		this.schemas = new Schema[types.length];
+		for (int i = 0; i < types.length; i++) {
+			kinds[i] = kindOf(types[i]);
+			if (kinds[i] == Kind.MESSAGE) {
+				try {
+					schemas[i] = ProtostuffSerialize.getSchema(types[i]);
+				} catch (RuntimeException e) {
+					logger.warn("No runtime schema for parameter type {}, written with its type name: {}", types[i].getName(), e.getMessage());
+					kinds[i] = Kind.OBJECT;
+				}
+			}
+		}
+	}
+
+	private static Kind kindOf(Class<?> type) {
+		if (type == boolean.class || type == Boolean.class) {
+			return Kind.BOOLEAN;
+		} else if (type == byte.class || type == Byte.class) {
+			return Kind.BYTE;
+		} else if (type == short.class || type == Short.class) {
+			return Kind.SHORT;
+		} else if (type == char.class || type == Character.class) {
+			return Kind.CHAR;
+		} else if (type == int.class || type == Integer.class) {
+			return Kind.INT;
+		} else if (type == long.class || type == Long.class) {
+			return Kind.LONG;
+		} else if (type == float.class || type == Float.class) {
+			return Kind.FLOAT;
+		} else if (type == double.class || type == Double.class) {
+			return Kind.DOUBLE;
+		} else if (type == String.class) {
+			return Kind.STRING;
+		} else if (type == byte[].class) {
+			return Kind.BYTES;
+		}
+		// plain application classes only, the runtime schema of a jdk class depends on its private fields
+		boolean message = !type.isInterface() && !type.isArray() && !type.isEnum() && !type.isPrimitive() && !Modifier
+				.isAbstract(type.getModifiers()) && !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type) && !type
+				.getName().startsWith("java.") && !type.getName().startsWith("javax.");
+		return message ? Kind.MESSAGE : Kind.OBJECT;
+	}
+
+	/**
+	 * The schema of a signature, built on first use and shared by every method with the same parameter types.
+	 */
+	public static ArgumentSchema of(Class<?>[] parameterTypes) {
+		ArgumentSchema schema = bySignature.get(Arrays.<Class<?>>asList(parameterTypes));
+		if (schema == null) {
+			Class<?>[] types = parameterTypes.clone();
+			schema = new ArgumentSchema(types);
+			ArgumentSchema existing = bySignature.putIfAbsent(Arrays.<Class<?>>asList(types), schema);
+			if (existing != null) {
+				schema = existing;
+			}
+		}
+		return schema;
+	}
+
+	/**
+	 * The schema of a compact request on the provider, whose ids were handed out by the instance factory of the transport.
+	 */
+	static ArgumentSchema get(int serviceId, int methodId) {
+		MethodInvoker invoker = ExtensionLoader.getExtension(InstanceFactory.class, RpcConstants.DEFAULT_TRANSPORTER, Scope.SINGLETON)
+				.getInvoker(serviceId, methodId);
+		if (invoker == null) {
+			return null;
+		}
+		ArgumentSchema schema = byMethod.get(invoker.getMethod());
+		if (schema == null) {
+			schema = of(invoker.getMethod().getParameterTypes());
+			byMethod.put(invoker.getMethod(), schema);
+		}
+		return schema;
+	}
+
+	static Class<?> classFor(String name) {
+		Class<?> type = classes.get(name);
+		if (type == null) {
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			try {
+				type = Class.forName(name, false, classLoader != null ? classLoader : ArgumentSchema.class.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				throw new MyRpcSerializeException("Unknown parameter type " + name, e);
+			}
+			classes.put(name, type);
+		}
+		return type;
+	}
+
+	/**
+	 * Argument i goes to field firstField + 2 * i when written bare, to the next field when written with its type, a null
+	 * argument is left out.
+	 */
+	static void writeTo(ArgumentSchema schema, Output output, Object[] arguments, int firstField) throws IOException {
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = arguments[i];
+			if (argument == null) {
+				continue;
+			}
+			int field = firstField + 2 * i;
+			if (schema == null || i >= schema.types.length) {
+				writePolymorphic(output, field + 1, argument);
+				continue;
+			}
+			switch (schema.kinds[i]) {
+			case BOOLEAN:
+				output.writeBool(field, (Boolean) argument, false);
+				break;
+			case BYTE:
+				output.writeSInt32(field, (Byte) argument, false);
+				break;
+			case SHORT:
+				output.writeSInt32(field, (Short) argument, false);
+				break;
+			case CHAR:
+				output.writeUInt32(field, (Character) argument, false);
+				break;
+			case INT:
+				output.writeSInt32(field, (Integer) argument, false);
+				break;
+			case LONG:
+				output.writeSInt64(field, (Long) argument, false);
+				break;
+			case FLOAT:
+				output.writeFloat(field, (Float) argument, false);
+				break;
+			case DOUBLE:
+				output.writeDouble(field, (Double) argument, false);
+				break;
+			case STRING:
+				output.writeString(field, (String) argument, false);
+				break;
+			case BYTES:
+				output.writeByteArray(field, (byte[]) argument, false);
+				break;
+			case MESSAGE:
+				if (argument.getClass() == schema.types[i]) {
+					output.writeObject(field, argument, schema.schemas[i], false);
+				} else {
+					writePolymorphic(output, field + 1, argument);
+				}
+				break;
+			default:
+				writePolymorphic(output, field + 1, argument);
+			}
+		}
+	}
+
+	private static void writePolymorphic(Output output, int field, Object argument) throws IOException {
+		Argument holder = new Argument();
+		holder.value = argument;
+		output.writeObject(field, holder, argumentSchema, false);
+	}
+
+	/**
+	 * Reads argument index from the field just announced by input, null when it was written bare and schema is unknown.
+	 */
+	static Object readFrom(ArgumentSchema schema, Input input, int index, boolean bare) throws IOException {
+		if (!bare) {
+			return input.mergeObject(null, argumentSchema).value;
+		}
+		switch (schema.kinds[index]) {
+		case BOOLEAN:
+			return input.readBool();
+		case BYTE:
+			return (byte) input.readSInt32();
+		case SHORT:
+			return (short) input.readSInt32();
+		case CHAR:
+			return (char) input.readUInt32();
+		case INT:
+			return input.readSInt32();
+		case LONG:
+			return input.readSInt64();
+		case FLOAT:
+			return input.readFloat();
+		case DOUBLE:
+			return input.readDouble();
+		case STRING:
+			return input.readString();
+		case BYTES:
+			return input.readByteArray();
+		case MESSAGE:
+			return input.mergeObject(null, schema.schemas[index]);
+		default:
+			throw new MyRpcSerializeException("Argument " + index + " of type " + schema.types[index].getName() + " cannot be read bare");
+		}
+	}
+
+	static boolean canRead(ArgumentSchema schema, int index) {
+		return schema != null && index < schema.types.length;
+	}
+
+	private static class Argument {
+
+		private Object value;
+	}
+}
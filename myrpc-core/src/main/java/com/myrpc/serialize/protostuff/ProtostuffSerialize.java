@@ -6,37 +6,59 @@ import com.dyuproject.protostuff.Schema;
 import com.dyuproject.protostuff.runtime.RuntimeSchema;
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.serialize.ByteBufInput;
+import com.myrpc.serialize.ByteBufOutput;
 import com.myrpc.serialize.Serialize;
+import io.netty.buffer.ByteBuf;
 import org.objenesis.Objenesis;
 import org.objenesis.ObjenesisStd;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 @RpcComponent(name = "protostuff")
 public class ProtostuffSerialize implements Serialize {
 
-	private static Map<Class<?>, Schema<?>> cachedSchema = new ConcurrentHashMap<>();
+	private static ConcurrentMap<Class<?>, Schema<?>> cachedSchema = new ConcurrentHashMap<>();
 
 	private static Objenesis objenesis = new ObjenesisStd(true);
 
-	private static <T> Schema<T> getSchema(Class<T> cls) {
+	// buffer and streams of the current thread, cleared after each message
+	private static final ThreadLocal<Buffers> buffers = new ThreadLocal<Buffers>() {
+		@Override
+		protected Buffers initialValue() {
+			return new Buffers();
+		}
+	};
+
+	static <T> Schema<T> getSchema(Class<T> cls) {
 		Schema<T> schema = (Schema<T>) cachedSchema.get(cls);
 		if (schema == null) {
-			schema = RuntimeSchema.createFrom(cls);
-			if (schema != null) {
-				cachedSchema.put(cls, schema);
-			}
+			// racing threads must not each build a schema, and put one over the other's
+			schema = (Schema<T>) cachedSchema.computeIfAbsent(cls, new Function<Class<?>, Schema<?>>() {
+				@Override
+				public Schema<?> apply(Class<?> cls) {
+					return RuntimeSchema.createFrom(cls);
+				}
+			});
 		}
 		return schema;
 	}
 
+	/**
+	 * The schema messages of class cls are written and read with.
+	 */
+	protected <T> Schema<T> schema(Class<T> cls) {
+		return getSchema(cls);
+	}
+
 	@Override
 	public <T> byte[] serialize(T object) {
 		Class<T> cls = (Class<T>) object.getClass();
-		LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+		LinkedBuffer buffer = buffers.get().buffer;
 		try {
-			Schema<T> schema = getSchema(cls);
+			Schema<T> schema = schema(cls);
 			return ProtostuffIOUtil.toByteArray(object, schema, buffer);
 		} catch (Exception e) {
 			throw new MyRpcSerializeException(e.getMessage(), e);
@@ -49,11 +71,58 @@ public class ProtostuffSerialize implements Serialize {
 	public <T> T deserialize(byte[] data, Class<T>... cls) {
 		try {
 			T message = (T) objenesis.newInstance(cls[0]);
-			Schema<T> schema = getSchema(cls[0]);
+			Schema<T> schema = schema(cls[0]);
 			ProtostuffIOUtil.mergeFrom(data, message, schema);
 			return message;
 		} catch (Exception e) {
 			throw new MyRpcSerializeException(e.getMessage(), e);
 		}
 	}
+
+	@Override
+	public <T> void serialize(T object, ByteBuf out) {
+		Class<T> cls = (Class<T>) object.getClass();
+		Buffers buffers = ProtostuffSerialize.buffers.get();
+		try {
+			Schema<T> schema = schema(cls);
+			ProtostuffIOUtil.writeTo(buffers.output.wrap(out), object, schema, buffers.buffer);
+		} catch (Exception e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			buffers.buffer.clear();
+			buffers.output.release();
+		}
+	}
+
+	@Override
+	public <T> T deserialize(ByteBuf in, Class<T>... cls) {
+		Buffers buffers = null;
+		try {
+			T message = (T) objenesis.newInstance(cls[0]);
+			Schema<T> schema = schema(cls[0]);
+			if (in.hasArray()) {
+				// heap buffers are read in place
+				ProtostuffIOUtil.mergeFrom(in.array(), in.arrayOffset() + in.readerIndex(), in.readableBytes(), message, schema);
+				in.skipBytes(in.readableBytes());
+			} else {
+				buffers = ProtostuffSerialize.buffers.get();
+				ProtostuffIOUtil.mergeFrom(buffers.input.wrap(in), message, schema, buffers.buffer);
+			}
+			return message;
+		} catch (Exception e) {
+			throw new MyRpcSerializeException(e.getMessage(), e);
+		} finally {
+			if (buffers != null) {
+				buffers.buffer.clear();
+				buffers.input.release();
+			}
+		}
+	}
+
+	private static class Buffers {
+
+		private final LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+		private final ByteBufOutput output = new ByteBufOutput();
+		private final ByteBufInput input = new ByteBufInput();
+	}
 }
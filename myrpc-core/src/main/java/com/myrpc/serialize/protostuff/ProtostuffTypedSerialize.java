@@ -0,0 +1,21 @@
+package com.myrpc.serialize.protostuff;
+
+import com.dyuproject.protostuff.Schema;
+import com.myrpc.extension.RpcComponent;
+import com.myrpc.model.RpcRequest;
+
+/**
+ * Protostuff with request arguments written against the declared parameter types of their method, see {@link ArgumentSchema}.
+ * Responses and handshakes are written as by the plain protostuff serialization.
+ */
+@RpcComponent(name = "protostuff-typed")
+public class ProtostuffTypedSerialize extends ProtostuffSerialize {
+
+	@Override
+	protected <T> Schema<T> schema(Class<T> cls) {
+		if (cls == RpcRequest.class) {
+			return (Schema<T>) RpcRequestSchema.INSTANCE;
+		}
+		return super.schema(cls);
+	}
+}
@@ -0,0 +1,190 @@
+package com.myrpc.serialize.protostuff;
+
+import com.dyuproject.protostuff.Input;
+import com.dyuproject.protostuff.Output;
+import com.dyuproject.protostuff.Schema;
+import com.myrpc.model.RpcRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RpcRequest} with its arguments written by {@link ArgumentSchema} rather than as a polymorphic {@code Object[]}. The
+ * parameter types, when sent at all, come before the arguments so the reader knows the signature when it gets to them.
+ */
+final class RpcRequestSchema implements Schema<RpcRequest> {
+
+	static final RpcRequestSchema INSTANCE = new RpcRequestSchema();
+
+	private static final int INTERFACE_NAME = 1;
+	private static final int METHOD_NAME = 2;
+	private static final int PARAMETER_TYPE = 3;
+	private static final int SERVICE_ID = 4;
+	private static final int METHOD_ID = 5;
+	private static final int TIMEOUT = 6;
+	private static final int ARGUMENT_COUNT = 7;
+	// two fields per argument from here on, see ArgumentSchema#writeTo
+	private static final int FIRST_ARGUMENT = 16;
+
+	private RpcRequestSchema() {
+	}
+
+	@Override
+	public void writeTo(Output output, RpcRequest request) throws IOException {
+		if (request.getInterfaceName() != null) {
+			output.writeString(INTERFACE_NAME, request.getInterfaceName(), false);
+		}
+		if (request.getMethodName() != null) {
+			output.writeString(METHOD_NAME, request.getMethodName(), false);
+		}
+		Class<?>[] parameterTypes = request.getParameterTypes();
+		if (parameterTypes != null) {
+			for (Class<?> parameterType : parameterTypes) {
+				output.writeString(PARAMETER_TYPE, parameterType.getName(), true);
+			}
+		}
+		if (request.getServiceId() != 0) {
+			output.writeInt32(SERVICE_ID, request.getServiceId(), false);
+		}
+		if (request.getMethodId() != 0) {
+			output.writeInt32(METHOD_ID, request.getMethodId(), false);
+		}
+		if (request.getTimeout() != 0) {
+			output.writeInt32(TIMEOUT, request.getTimeout(), false);
+		}
+		Object[] arguments = request.getParameters();
+		if (arguments != null) {
+			output.writeInt32(ARGUMENT_COUNT, arguments.length, false);
+			Class<?>[] declaredTypes = parameterTypes != null ? parameterTypes : request.getDeclaredParameterTypes();
+			ArgumentSchema schema = declaredTypes != null ? ArgumentSchema.of(declaredTypes) : null;
+			ArgumentSchema.writeTo(schema, output, arguments, FIRST_ARGUMENT);
+		}
+	}
+
+	@Override
+	public void mergeFrom(Input input, RpcRequest request) throws IOException {
+		List<Class<?>> parameterTypes = null;
+		Object[] arguments = null;
+		ArgumentSchema schema = null;
+		for (int number = input.readFieldNumber(this); number != 0; number = input.readFieldNumber(this)) {
+			switch (number) {
+			case INTERFACE_NAME:
+				request.setInterfaceName(input.readString());
+				break;
+			case METHOD_NAME:
+				request.setMethodName(input.readString());
+				break;
+			case PARAMETER_TYPE:
+				if (parameterTypes == null) {
+					parameterTypes = new ArrayList<>();
+				}
+				parameterTypes.add(ArgumentSchema.classFor(input.readString()));
+				break;
+			case SERVICE_ID:
+				request.setServiceId(input.readInt32());
+				break;
+			case METHOD_ID:
+				request.setMethodId(input.readInt32());
+				break;
+			case TIMEOUT:
+				request.setTimeout(input.readInt32());
+				break;
+			case ARGUMENT_COUNT:
+				arguments = new Object[input.readInt32()];
+				if (parameterTypes != null) {
+					request.setParameterTypes(parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
+					schema = ArgumentSchema.of(request.getParameterTypes());
+				} else {
+					schema = ArgumentSchema.get(request.getServiceId(), request.getMethodId());
+				}
+				break;
+			default:
+				int index = (number - FIRST_ARGUMENT) >> 1;
+				boolean bare = ((number - FIRST_ARGUMENT) & 1) == 0;
+				if (number >= FIRST_ARGUMENT && arguments != null && index < arguments.length && (!bare || ArgumentSchema.canRead(schema, index))) {
+					arguments[index] = ArgumentSchema.readFrom(schema, input, index, bare);
+				} else {
+					// an argument of a method this side does not know, the invoker lookup fails on it later
+					input.handleUnknownField(number, this);
+				}
+			}
+		}
+		if (parameterTypes != null && request.getParameterTypes() == null) {
+			request.setParameterTypes(parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
+		} else if (parameterTypes == null && request.getMethodName() != null) {
+			// a full request of a method without parameters, nothing was written for its empty signature
+			request.setParameterTypes(new Class<?>[0]);
+		}
+		request.setParameters(arguments);
+	}
+
+	@Override
+	public String getFieldName(int number) {
+		switch (number) {
+		case INTERFACE_NAME:
+			return "interfaceName";
+		case METHOD_NAME:
+			return "methodName";
+		case PARAMETER_TYPE:
+			return "parameterTypes";
+		case SERVICE_ID:
+			return "serviceId";
+		case METHOD_ID:
+			return "methodId";
+		case TIMEOUT:
+			return "timeout";
+		case ARGUMENT_COUNT:
+			return "argumentCount";
+		default:
+			return number >= FIRST_ARGUMENT ? "parameters" : null;
+		}
+	}
+
+	@Override
+	public int getFieldNumber(String name) {
+		switch (name) {
+		case "interfaceName":
+			return INTERFACE_NAME;
+		case "methodName":
+			return METHOD_NAME;
+		case "parameterTypes":
+			return PARAMETER_TYPE;
+		case "serviceId":
+			return SERVICE_ID;
+		case "methodId":
+			return METHOD_ID;
+		case "timeout":
+			return TIMEOUT;
+		case "argumentCount":
+			return ARGUMENT_COUNT;
+		default:
+			return 0;
+		}
+	}
+
+	@Override
+	public boolean isInitialized(RpcRequest request) {
+		return true;
+	}
+
+	@Override
+	public RpcRequest newMessage() {
+		return new RpcRequest();
+	}
+
+	@Override
+	public String messageName() {
+		return RpcRequest.class.getSimpleName();
+	}
+
+	@Override
+	public String messageFullName() {
+		return RpcRequest.class.getName();
+	}
+
+	@Override
+	public Class<? super RpcRequest> typeClass() {
+		return RpcRequest.class;
+	}
+}
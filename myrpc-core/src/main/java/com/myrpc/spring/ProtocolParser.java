@@ -22,6 +22,16 @@ public class ProtocolParser extends MyRpcBeanDefinitionParser {
 		String threadpool = element.getAttribute("threadpool");
 		String threads = element.getAttribute("threads");
 		String iothreads = element.getAttribute("iothreads");
+		String ioengine = element.getAttribute("ioengine");
+		String acceptors = element.getAttribute("acceptors");
+		String writebatch = element.getAttribute("writebatch");
+		String writebatchbytes = element.getAttribute("writebatchbytes");
+		String readbacklog = element.getAttribute("readbacklog");
+		String writebacklog = element.getAttribute("writebacklog");
+		String codeltarget = element.getAttribute("codeltarget");
+		String codelinterval = element.getAttribute("codelinterval");
+		String compression = element.getAttribute("compression");
+		String compressthreshold = element.getAttribute("compressthreshold");
 
 		builder.addPropertyValue("name",name);
 		builder.addPropertyValue("host",host);
@@ -32,5 +42,17 @@ public class ProtocolParser extends MyRpcBeanDefinitionParser {
 		builder.addPropertyValue("threadpool",threadpool);
 		builder.addPropertyValue("threads",threads);
 		builder.addPropertyValue("iothreads",iothreads);
+		builder.addPropertyValue("ioengine",ioengine);
+		if (acceptors.length() > 0) {
+			builder.addPropertyValue("acceptors",acceptors);
+		}
+		builder.addPropertyValue("writebatch",writebatch);
+		builder.addPropertyValue("writebatchbytes",writebatchbytes);
+		builder.addPropertyValue("readbacklog",readbacklog);
+		builder.addPropertyValue("writebacklog",writebacklog);
+		builder.addPropertyValue("codeltarget",codeltarget);
+		builder.addPropertyValue("codelinterval",codelinterval);
+		builder.addPropertyValue("compression",compression);
+		builder.addPropertyValue("compressthreshold",compressthreshold);
 	}
 }
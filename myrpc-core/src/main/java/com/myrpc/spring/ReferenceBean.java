@@ -66,11 +66,6 @@ public class ReferenceBean<T> extends ReferenceConfig<T> implements FactoryBean,
 		}
 	}
 
-	@Override
-	public void destroy() throws Exception {
-
-	}
-
 	@Override
 	public Object getObject() {
 		return get();
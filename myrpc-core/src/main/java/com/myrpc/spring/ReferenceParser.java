@@ -19,6 +19,8 @@ public class ReferenceParser extends MyRpcBeanDefinitionParser {
 		String timeout = element.getAttribute("timeout");
 		String retries = element.getAttribute("retries");
 		String connecttimeout = element.getAttribute("connecttimeout");
+		String connections = element.getAttribute("connections");
+		String idletimeout = element.getAttribute("idletimeout");
 		String proxy = element.getAttribute("proxy");
 		String cluster = element.getAttribute("cluster");
 
@@ -29,6 +31,8 @@ public class ReferenceParser extends MyRpcBeanDefinitionParser {
 		builder.addPropertyValue("timeout", timeout);
 		builder.addPropertyValue("retries", retries);
 		builder.addPropertyValue("connecttimeout", connecttimeout);
+		builder.addPropertyValue("connections", connections);
+		builder.addPropertyValue("idletimeout", idletimeout);
 		builder.addPropertyValue("proxy", proxy);
 		builder.addPropertyValue("cluster", cluster);
 	}
@@ -1,9 +1,13 @@
 package com.myrpc.spring;
 
 import org.springframework.beans.factory.config.BeanDefinition;
+import com.myrpc.config.MethodConfig;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.ManagedList;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 public class ServiceParser extends MyRpcBeanDefinitionParser {
 
@@ -19,6 +23,9 @@ public class ServiceParser extends MyRpcBeanDefinitionParser {
 		String version = element.getAttribute("version");
 		String group = element.getAttribute("group");
 		String timeout = element.getAttribute("timeout");
+		String threadpool = element.getAttribute("threadpool");
+		String threads = element.getAttribute("threads");
+		String executes = element.getAttribute("executes");
 //		String loadbalance = element.getAttribute("loadbalance");
 //		String retries = element.getAttribute("retries");
 
@@ -29,7 +36,40 @@ public class ServiceParser extends MyRpcBeanDefinitionParser {
 		builder.addPropertyValue("version", version);
 		builder.addPropertyValue("group", group);
 		builder.addPropertyValue("timeout", timeout);
+		builder.addPropertyValue("threadpool", threadpool);
+		if (threads.length() > 0) {
+			builder.addPropertyValue("threads", threads);
+		}
+		if (executes.length() > 0) {
+			builder.addPropertyValue("executes", executes);
+		}
+		ManagedList<BeanDefinition> methods = parseMethods(element);
+		if (!methods.isEmpty()) {
+			builder.addPropertyValue("methods", methods);
+		}
 //		builder.addPropertyValue("loadbalance", loadbalance);
 //		builder.addPropertyValue("retries", retries);
 	}
+
+	private ManagedList<BeanDefinition> parseMethods(Element element) {
+		ManagedList<BeanDefinition> methods = new ManagedList<>();
+		NodeList nodes = element.getChildNodes();
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Node node = nodes.item(i);
+			if (node instanceof Element && "method".equals(node.getLocalName())) {
+				Element methodElement = (Element) node;
+				BeanDefinitionBuilder method = BeanDefinitionBuilder.genericBeanDefinition(MethodConfig.class);
+				method.addPropertyValue("name", methodElement.getAttribute("name"));
+				method.addPropertyValue("threadpool", methodElement.getAttribute("threadpool"));
+				if (methodElement.getAttribute("threads").length() > 0) {
+					method.addPropertyValue("threads", methodElement.getAttribute("threads"));
+				}
+				if (methodElement.getAttribute("executes").length() > 0) {
+					method.addPropertyValue("executes", methodElement.getAttribute("executes"));
+				}
+				methods.add(method.getBeanDefinition());
+			}
+		}
+		return methods;
+	}
 }
@@ -0,0 +1,166 @@
+package com.myrpc.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.myrpc.common.RpcConstants;
+import com.myrpc.config.URL;
+import com.myrpc.metrics.Gauge;
+import com.myrpc.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connections to provider nodes shared by every reference of the process, so fifty references to services of one provider
+ * host use one pool of connections instead of fifty. A pool is counted by the references holding it and closed once it has
+ * been unused for its idle timeout.
+ */
+public final class ConnectionManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConnectionManager.class);
+	private static final Map<String, Entry> pools = new HashMap<>();
+	private static final Map<ConnectorPool, Entry> entries = new IdentityHashMap<>();
+	private static ScheduledExecutorService reaper;
+
+	static {
+		MetricRegistry.gauge("transport.client.pools", new Gauge() {
+			@Override
+			public Number value() {
+				synchronized (pools) {
+					return pools.size();
+				}
+			}
+		});
+	}
+
+	private ConnectionManager() {
+	}
+
+	/**
+	 * The pool for the node of url, connected, the caller must {@link #release(ConnectorPool)} it when done. References differing
+	 * in serialization, io engine, compression or connection count get pools of their own, the other transport settings are those of the
+	 * first reference.
+	 */
+	public static ConnectorPool acquire(String transporter, URL url, int connections) {
+		String key = transporter + "://" + url.getServerPortStr() + "?" + RpcConstants.SERIALIZATION_KEY + "=" + url
+				.getParameter(RpcConstants.SERIALIZATION_KEY) + "&" + RpcConstants.IOENGINE_KEY + "=" + url.getParameter(RpcConstants.IOENGINE_KEY)
+				+ "&" + RpcConstants.COMPRESSION_KEY + "=" + url.getParameter(RpcConstants.COMPRESSION_KEY) + "&" + RpcConstants.CONNECTIONS_KEY
+				+ "=" + connections;
+		Entry entry;
+		synchronized (pools) {
+			entry = pools.get(key);
+			if (entry == null) {
+				entry = new Entry(key, new ConnectorPool(transporter, url, connections),
+						url.getIntParameter(RpcConstants.IDLETIMEOUT_KEY, RpcConstants.DEFAULT_IDLETIMEOUT));
+				pools.put(key, entry);
+				entries.put(entry.pool, entry);
+				logger.info("Open shared connections " + key);
+			}
+			entry.references++;
+		}
+		// outside the lock, connecting to a slow node must not hold up references to other nodes
+		try {
+			entry.pool.connect();
+		} catch (RuntimeException e) {
+			// the caller gets no pool to release, and one that failed to connect is not worth keeping open while idle
+			boolean unused;
+			synchronized (pools) {
+				unused = --entry.references == 0;
+				if (unused) {
+					remove(entry);
+				}
+			}
+			if (unused) {
+				close(entry);
+			}
+			throw e;
+		}
+		return entry.pool;
+	}
+
+	/**
+	 * Gives back a pool from {@link #acquire(String, URL, int)}, the last release leaves it open until its idle timeout.
+	 */
+	public static void release(ConnectorPool pool) {
+		Entry entry;
+		synchronized (pools) {
+			entry = entries.get(pool);
+			if (entry == null || entry.references == 0 || --entry.references > 0) {
+				return;
+			}
+			entry.idleSince = System.currentTimeMillis();
+			if (entry.idleTimeout > 0) {
+				scheduleReaper();
+				return;
+			}
+			remove(entry);
+		}
+		close(entry);
+	}
+
+	private static void scheduleReaper() {
+		if (reaper == null) {
+			reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("myrpc-connection-reaper").setDaemon(true).build());
+			reaper.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					closeIdle();
+				}
+			}, 1, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	private static void closeIdle() {
+		long now = System.currentTimeMillis();
+		List<Entry> idle = new ArrayList<>();
+		synchronized (pools) {
+			for (Entry entry : new ArrayList<>(pools.values())) {
+				if (entry.references == 0 && now - entry.idleSince >= entry.idleTimeout) {
+					remove(entry);
+					idle.add(entry);
+				}
+			}
+		}
+		for (Entry entry : idle) {
+			close(entry);
+		}
+	}
+
+	/**
+	 * Under the pools lock, a later acquire of the same node opens a new pool.
+	 */
+	private static void remove(Entry entry) {
+		pools.remove(entry.key);
+		entries.remove(entry.pool);
+	}
+
+	/**
+	 * Outside the pools lock, closing channels waits on event loops and must not hold up references to other nodes.
+	 */
+	private static void close(Entry entry) {
+		logger.info("Close shared connections " + entry.key);
+		entry.pool.disConnect();
+	}
+
+	private static class Entry {
+
+		private final String key;
+		private final ConnectorPool pool;
+		private final long idleTimeout;
+		private int references;
+		private long idleSince;
+
+		Entry(String key, ConnectorPool pool, long idleTimeout) {
+			this.key = key;
+			this.pool = pool;
+			this.idleTimeout = idleTimeout;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.myrpc.transport;
 
 import com.myrpc.config.URL;
+import com.myrpc.consumer.future.InvokeFuture;
 import com.myrpc.model.RpcRequest;
 
 import java.net.InetSocketAddress;
@@ -27,5 +28,10 @@ public interface Connector {
 
 	void disConnect();
 
-	void request(RpcRequest request);
+	/**
+	 * Requests sent on this connection that are still waiting for their response.
+	 */
+	int getPending();
+
+	<T> InvokeFuture<T> request(RpcRequest request, Class<T> returnType);
 }
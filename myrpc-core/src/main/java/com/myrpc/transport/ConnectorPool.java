@@ -0,0 +1,136 @@
+package com.myrpc.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.myrpc.config.URL;
+import com.myrpc.extension.ExtensionLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several connections to one provider node. Each request goes to the connection with the fewest pending requests, so a
+ * large response only holds up the requests behind it on its own connection, and each connection has its own event loop.
+ */
+public class ConnectorPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConnectorPool.class);
+	private static final long RECONNECT_INTERVAL_MILLIS = 1000;
+	private static final Executor reconnector = Executors
+			.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("myrpc-reconnect").setDaemon(true).build());
+
+	private final Connector[] connectors;
+	private final AtomicInteger next = new AtomicInteger();
+	private final AtomicLong nextReconnect = new AtomicLong();
+	private volatile boolean closed;
+
+	/**
+	 * @param url the provider node's url, with the consumer side transport settings added
+	 */
+	public ConnectorPool(String transporter, URL url, int connections) {
+		this.connectors = new Connector[Math.max(1, connections)];
+		for (int i = 0; i < connectors.length; i++) {
+			connectors[i] = ExtensionLoader.getExtension(Connector.class, transporter).with(url).init();
+		}
+	}
+
+	/**
+	 * The connected connector with the fewest pending requests. While some are connected the others are reconnected in the
+	 * background, at most once a second, when none is left the caller connects one.
+	 */
+	public Connector select() {
+		if (connectors.length == 1) {
+			return connected(connectors[0]);
+		}
+		// start at a rotating index so ties spread over the pool
+		int start = (next.getAndIncrement() & Integer.MAX_VALUE) % connectors.length;
+		Connector selected = null;
+		int least = Integer.MAX_VALUE;
+		boolean disconnected = false;
+		for (int i = 0; i < connectors.length; i++) {
+			Connector connector = connectors[(start + i) % connectors.length];
+			if (connector.isConnected()) {
+				int pending = connector.getPending();
+				if (pending < least) {
+					least = pending;
+					selected = connector;
+				}
+			} else {
+				disconnected = true;
+			}
+		}
+		if (selected == null) {
+			return connected(connectors[start]);
+		}
+		if (disconnected) {
+			reconnectLater();
+		}
+		return selected;
+	}
+
+	private void reconnectLater() {
+		long now = System.currentTimeMillis();
+		long at = nextReconnect.get();
+		if (now < at || !nextReconnect.compareAndSet(at, now + RECONNECT_INTERVAL_MILLIS)) {
+			return;
+		}
+		reconnector.execute(new Runnable() {
+			@Override
+			public void run() {
+				for (Connector connector : connectors) {
+					if (closed) {
+						return;
+					}
+					if (!connector.isConnected()) {
+						try {
+							connector.connect();
+						} catch (RuntimeException e) {
+							logger.warn("Reconnect to {} failed: {}", connector.getConnectAddress(), e.getMessage());
+						}
+					}
+				}
+				// disconnected while this one was connecting
+				if (closed) {
+					disConnect();
+				}
+			}
+		});
+	}
+
+	private static Connector connected(Connector connector) {
+		if (!connector.isConnected()) {
+			connector.connect();
+		}
+		return connector;
+	}
+
+	public void connect() {
+		closed = false;
+		for (Connector connector : connectors) {
+			if (!connector.isConnected()) {
+				connector.connect();
+			}
+		}
+	}
+
+	public void disConnect() {
+		closed = true;
+		for (Connector connector : connectors) {
+			if (connector.isConnected()) {
+				connector.disConnect();
+			}
+		}
+	}
+
+	public boolean isConnected() {
+		for (Connector connector : connectors) {
+			if (connector.isConnected()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -2,24 +2,28 @@ package com.myrpc.transport.netty;
 
 import com.myrpc.common.NetUtils;
 import com.myrpc.common.RpcConstants;
-import com.myrpc.concurrent.SimpleThreadExecutor;
+import com.myrpc.compress.CompressType;
+import com.myrpc.compress.FrameCompressor;
+import com.myrpc.concurrent.ExecutorRepository;
 import com.myrpc.extension.ExtensionLoader;
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.extension.Scope;
 import com.myrpc.model.RpcRequest;
-import com.myrpc.model.RpcResponse;
+import com.myrpc.rpc.AdmissionControl;
 import com.myrpc.rpc.InstanceFactory;
 import com.myrpc.serialize.MessageDecoder;
 import com.myrpc.serialize.MessageEncoder;
 import com.myrpc.serialize.Serialize;
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.serialize.SerializeType;
 import com.myrpc.transport.AbstractAcceptor;
 import com.myrpc.transport.Acceptor;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -27,17 +31,23 @@ import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 @RpcComponent(name = "netty")
 public class NettyAcceptor extends AbstractAcceptor {
 
 	private static final Logger logger = LoggerFactory.getLogger(NettyAcceptor.class);
-	private static SimpleThreadExecutor threadPoolExecutor;
+	private Executor threadPoolExecutor;
+	private AdmissionControl admissionControl;
 	private ServerBootstrap bootstrap;
 	private EventLoopGroup bossGroup;
 	private EventLoopGroup workerGroup;
-	private Channel serverChannel;
+	private List<Channel> serverChannels;
 	private InstanceFactory instanceFactory;
-	private Serialize serialize;
+	private SerializeType serializeType;
+	private NettyAcceptorHandshakeHandler handshakeHandler;
 
 
 	@Override
@@ -45,26 +55,35 @@ public class NettyAcceptor extends AbstractAcceptor {
 
 		this.instanceFactory = ExtensionLoader.getExtension(InstanceFactory.class, url.getParameter(RpcConstants.TRANSPORTER_KEY), Scope.SINGLETON);
 
-		this.serialize = ExtensionLoader.getExtension(Serialize.class, url.getParameter(RpcConstants.SERIALIZATION_KEY), Scope.SINGLETON);
-
-		if (threadPoolExecutor == null) {
-			synchronized (NettyAcceptor.class) {
-				if (threadPoolExecutor == null) {
-					threadPoolExecutor = new SimpleThreadExecutor(url);
-				}
-			}
+		this.serializeType = SerializeType.parse(url.getParameter(RpcConstants.SERIALIZATION_KEY));
+		if (serializeType == null) {
+			throw new MyRpcSerializeException("Unsupported serialization " + url.getParameter(RpcConstants.SERIALIZATION_KEY));
 		}
+		List<CompressType> compressions = CompressType.parseList(url.getParameter(RpcConstants.COMPRESSION_KEY));
+		// a codec whose library is missing fails here rather than on the first connection
+		ExtensionLoader.getExtension(Serialize.class, serializeType.getName(), Scope.SINGLETON);
+		for (CompressType compressType : compressions) {
+			FrameCompressor.get(compressType);
+		}
+		this.handshakeHandler = new NettyAcceptorHandshakeHandler(instanceFactory, compressions,
+				url.getIntParameter(RpcConstants.COMPRESSTHRESHOLD_KEY, RpcConstants.DEFAULT_COMPRESSTHRESHOLD));
+
+		this.threadPoolExecutor = ExecutorRepository.getExecutor("myrpc-" + url.getPort(),
+				url.getParameter(RpcConstants.THREADPOOL_KEY, RpcConstants.DEFAULT_THREADPOOL),
+				url.getIntParameter(RpcConstants.THREADS_KEY, RpcConstants.DEFAULT_THREADS));
+		this.admissionControl = new AdmissionControl(url.getIntParameter(RpcConstants.CODELTARGET_KEY, RpcConstants.DEFAULT_CODELTARGET),
+				url.getIntParameter(RpcConstants.CODELINTERVAL_KEY, RpcConstants.DEFAULT_CODELINTERVAL));
 		return this;
 	}
 
 	@Override
 	public boolean isStarted() {
-		return serverChannel != null && serverChannel.isActive();
+		return serverChannels != null && serverChannels.get(0).isActive();
 	}
 
 	@Override
 	public boolean isShutdowned() {
-		return serverChannel == null || !serverChannel.isActive();
+		return serverChannels == null || !serverChannels.get(0).isActive();
 	}
 
 
@@ -72,48 +91,69 @@ public class NettyAcceptor extends AbstractAcceptor {
 	public synchronized void start() {
 		if (isStarted())
 			return;
+		NettyIoEngine ioEngine = NettyIoEngine.select(url.getParameter(RpcConstants.IOENGINE_KEY, RpcConstants.DEFAULT_IOENGINE));
+		// with SO_REUSEPORT the kernel spreads new connections over several listening sockets, each on its own boss loop
+		int acceptors = ioEngine == NettyIoEngine.EPOLL ?
+				Math.max(1, url.getIntParameter(RpcConstants.ACCEPTORS_KEY, RpcConstants.DEFAULT_ACCEPTORS)) :
+				1;
 		bootstrap = new ServerBootstrap();
-		bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("NettyServerBoss", true));
-		workerGroup = new NioEventLoopGroup(url.getIntParameter(RpcConstants.IOTHREADS_KEY), new DefaultThreadFactory("NettyServerWorker", true));
+		bossGroup = ioEngine.newEventLoopGroup(acceptors, new DefaultThreadFactory("NettyServerBoss", true));
+		workerGroup = ioEngine.newEventLoopGroup(url.getIntParameter(RpcConstants.IOTHREADS_KEY), new DefaultThreadFactory("NettyServerWorker", true));
 
 		int readerIdleTimeSeconds = url.getIntParameter(RpcConstants.HEARTBEAT_KEY);
 
-		bootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class).childOption(ChannelOption.TCP_NODELAY, Boolean.TRUE)
-				.childOption(ChannelOption.SO_REUSEADDR, Boolean.TRUE).childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
-				.childHandler(new ChannelInitializer<NioSocketChannel>() {
+		bootstrap.group(bossGroup, workerGroup).channel(ioEngine.serverChannelClass()).childOption(ChannelOption.TCP_NODELAY, Boolean.TRUE)
+				.childOption(ChannelOption.SO_REUSEADDR, Boolean.TRUE).childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+		if (ioEngine == NettyIoEngine.EPOLL) {
+			bootstrap.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED).childOption(EpollChannelOption.TCP_QUICKACK, Boolean.TRUE);
+			if (acceptors > 1) {
+				bootstrap.option(EpollChannelOption.SO_REUSEPORT, Boolean.TRUE);
+			}
+		}
+		bootstrap.childHandler(new ChannelInitializer<SocketChannel>() {
+			@Override
+			protected void initChannel(SocketChannel ch) {
+				ch.pipeline().addLast("idlestate", new IdleStateHandler(readerIdleTimeSeconds, 0, 0) {
 					@Override
-					protected void initChannel(NioSocketChannel ch) {
-						ch.pipeline().addLast("idlestate", new IdleStateHandler(readerIdleTimeSeconds, 0, 0) {
-							@Override
-							public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-								if (evt instanceof IdleStateEvent) {
-									IdleStateEvent e = (IdleStateEvent) evt;
-									if (e.state() == IdleState.READER_IDLE) {
-										ctx.close();
-									} else if (e.state() == IdleState.WRITER_IDLE) {
-										//ctx.writeAndFlush(new PingMessage());
-									}
-								} else {
-									super.userEventTriggered(ctx, evt);
-								}
+					public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+						if (evt instanceof IdleStateEvent) {
+							IdleStateEvent e = (IdleStateEvent) evt;
+							if (e.state() == IdleState.READER_IDLE) {
+								ctx.close();
+							} else if (e.state() == IdleState.WRITER_IDLE) {
+								//ctx.writeAndFlush(new PingMessage());
 							}
-						}).addLast("decoder", new MessageDecoder(serialize, RpcRequest.class))
-								.addLast("encoder", new MessageEncoder(serialize, RpcResponse.class))
-								.addLast("handler", new NettyAcceptorHandler(instanceFactory, threadPoolExecutor));
+						} else {
+							super.userEventTriggered(ctx, evt);
+						}
 					}
-				});
-		ChannelFuture channelFuture = bootstrap.bind(url.getIntParameter(RpcConstants.PORT_KEY));
-		channelFuture.syncUninterruptibly();
-		serverChannel = channelFuture.channel();
-		logger.info("Netty RPC Server start success!port:{}", NetUtils.getAvailablePort());
+				}).addLast("decoder", new MessageDecoder(RpcRequest.class))
+						.addLast("encoder", new MessageEncoder(serializeType))
+						.addLast("handshake", handshakeHandler)
+						.addLast("handler", new NettyAcceptorHandler(instanceFactory, threadPoolExecutor, admissionControl,
+								url.getIntParameter(RpcConstants.WRITEBATCH_KEY, RpcConstants.DEFAULT_WRITEBATCH),
+								url.getIntParameter(RpcConstants.WRITEBATCHBYTES_KEY, RpcConstants.DEFAULT_WRITEBATCHBYTES),
+								url.getIntParameter(RpcConstants.READBACKLOG_KEY, RpcConstants.DEFAULT_READBACKLOG)));
+			}
+		});
+		List<Channel> channels = new ArrayList<>(acceptors);
+		for (int i = 0; i < acceptors; i++) {
+			ChannelFuture channelFuture = bootstrap.bind(url.getIntParameter(RpcConstants.PORT_KEY));
+			channelFuture.syncUninterruptibly();
+			channels.add(channelFuture.channel());
+		}
+		serverChannels = channels;
+		logger.info("Netty RPC Server start success!port:{} ioengine:{} acceptors:{}", NetUtils.getAvailablePort(), ioEngine, acceptors);
 	}
 
 	@Override
 	public synchronized void shutdownGracefully() {
 		if (isShutdowned())
 			return;
-		if (serverChannel != null) {
-			serverChannel.close();
+		if (serverChannels != null) {
+			for (Channel serverChannel : serverChannels) {
+				serverChannel.close();
+			}
 			bossGroup.shutdownGracefully();
 			workerGroup.shutdownGracefully();
 			bossGroup = null;
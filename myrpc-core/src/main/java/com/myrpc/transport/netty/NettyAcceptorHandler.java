@@ -1,107 +1,269 @@
 package com.myrpc.transport.netty;
 
-import com.myrpc.concurrent.SimpleThreadExecutor;
+import com.myrpc.common.ReflectUtils;
+import com.myrpc.concurrent.Bulkhead;
+import com.myrpc.concurrent.ConnectionOrderedExecutor;
+import com.myrpc.exception.MyRpcRpcException;
 import com.myrpc.exception.MyRpcServerRpcException;
+import com.myrpc.metrics.Counter;
+import com.myrpc.metrics.MetricRegistry;
 import com.myrpc.model.RpcRequest;
 import com.myrpc.model.RpcResponse;
+import com.myrpc.rpc.AdmissionControl;
 import com.myrpc.rpc.InstanceFactory;
+import com.myrpc.rpc.MethodInvoker;
 import com.myrpc.rpc.RpcContext;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
-import net.sf.cglib.reflect.FastClass;
-import net.sf.cglib.reflect.FastMethod;
+import io.netty.handler.codec.EncoderException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 public class NettyAcceptorHandler extends SimpleChannelInboundHandler<RpcRequest> {
 
 	private static final Logger logger = LoggerFactory.getLogger(NettyAcceptorHandler.class);
 	private InstanceFactory nettyRpcInstanceFactory;
-	private SimpleThreadExecutor threadPoolExecutor;
+	private Executor defaultExecutor;
+	private AdmissionControl admissionControl;
+	private final Map<Executor, Executor> serialExecutors = new IdentityHashMap<>();
+	private final int writeBatch;
+	private final int writeBatchBytes;
+	private final int readBacklog;
+	// requests of this connection read but not answered yet
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Counter readPauses = MetricRegistry.counter("transport.server.read.pauses");
+	private NettyWriteQueue writeQueue;
 
-	public NettyAcceptorHandler(InstanceFactory nettyRpcInstanceFactory, SimpleThreadExecutor threadPoolExecutor) {
+	/**
+	 * @param defaultExecutor runs methods without a service or method level pool of their own
+	 * @param readBacklog unanswered requests of one connection at which reading from it pauses, it resumes at half of that
+	 */
+	public NettyAcceptorHandler(InstanceFactory nettyRpcInstanceFactory, Executor defaultExecutor, AdmissionControl admissionControl,
+			int writeBatch, int writeBatchBytes, int readBacklog) {
 		this.nettyRpcInstanceFactory = nettyRpcInstanceFactory;
-		this.threadPoolExecutor = threadPoolExecutor;
+		this.defaultExecutor = defaultExecutor;
+		this.admissionControl = admissionControl;
+		this.writeBatch = writeBatch;
+		this.writeBatchBytes = writeBatchBytes;
+		this.readBacklog = readBacklog <= 0 ? Integer.MAX_VALUE : readBacklog;
+	}
+
+	@Override
+	public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+		this.writeQueue = new NettyWriteQueue(ctx.channel(), writeBatch, writeBatchBytes, 0, "transport.server.write");
+		ctx.fireChannelRegistered();
 	}
 
 	@Override
 	public void channelRead0(final ChannelHandlerContext ctx, final RpcRequest request) throws Exception {
+		if (inFlight.incrementAndGet() >= readBacklog) {
+			updateAutoRead(ctx);
+		}
+		long receiveTime = System.nanoTime();
+		request.setReceiveTime(receiveTime);
+		if (request.getTimeout() > 0) {
+			request.setDeadline(receiveTime + TimeUnit.MILLISECONDS.toNanos(request.getTimeout()));
+		}
+		final MethodInvoker invoker;
 		try {
-			threadPoolExecutor.execute(new Runnable() {
+			invoker = resolve(request);
+		} catch (RuntimeException e) {
+			RpcResponse response = new RpcResponse();
+			response.setRequestId(request.getRequestId());
+			setError(request, response, e);
+			sendResponse(ctx, response);
+			return;
+		}
+		Bulkhead bulkhead = invoker.getBulkhead();
+		if (bulkhead != null && !bulkhead.tryAcquire()) {
+			logger.warn("bulkhead is full, reject request, bulkhead={} requestId={}", bulkhead, request.getRequestId());
+			sendOverloaded(ctx, request);
+			return;
+		}
+		final Executor pool = invoker.getExecutor() != null ? invoker.getExecutor() : defaultExecutor;
+		Executor executor = getExecutor(pool);
+		try {
+			executor.execute(new Runnable() {
 				@Override
 				public void run() {
-					logger.debug("Receive request:{},remoteAddress:{}", request.getRequestId(), ctx.channel().remoteAddress());
-					RpcResponse response = new RpcResponse();
-					response.setRequestId(request.getRequestId());
-					final long processStartTime = System.currentTimeMillis();
-					try {
-						RpcContext.init(request);
-						Object result = handle(request);
-						response.setResult(result);
-					} catch (Exception e) {
-						response.setError(
-								new MyRpcServerRpcException("RPC Server handle request error request:" + NettyAcceptorHandler.toString(request), e));
-
-						logger.error("RPC Server handle request error request:" + NettyAcceptorHandler.toString(request), e);
+					long now = System.nanoTime();
+					if (admissionControl.isExpired(request, now)) {
+						// the consumer has timed out already, an answer would be discarded
+						release(invoker);
+						requestDone(ctx);
+					} else if (admissionControl.shouldShed(pool, request, now)) {
+						release(invoker);
+						sendOverloaded(ctx, request);
+					} else {
+						process(ctx, request, invoker);
 					}
-					response.setProcessTime(System.currentTimeMillis() - processStartTime);
-					sendResponse(ctx, response);
 				}
 			});
 		} catch (RejectedExecutionException rejectException) {
-			logger.warn(
-					"process thread pool is full, run in io thread, active={} poolSize={} corePoolSize={} maxPoolSize={} taskCount={} requestId={}",
-					threadPoolExecutor.getActiveCount(), threadPoolExecutor.getPoolSize(), threadPoolExecutor.getCorePoolSize(),
-					threadPoolExecutor.getMaximumPoolSize(), threadPoolExecutor.getTaskCount(), request.getRequestId());
+			release(invoker);
+			logger.warn("process thread pool is full, reject request, executor={} requestId={}", executor, request.getRequestId());
+			sendOverloaded(ctx, request);
+		}
+	}
 
-			RpcResponse response = new RpcResponse();
-			response.setRequestId(request.getRequestId());
-			response.setError(
-					new MyRpcServerRpcException("process thread pool is full, reject by server: " + ctx.channel().localAddress(), rejectException));
+	/**
+	 * Pools ordered per connection get one serial executor for this channel, only touched from its event loop.
+	 */
+	private Executor getExecutor(Executor executor) {
+		if (executor instanceof ConnectionOrderedExecutor) {
+			Executor serialExecutor = serialExecutors.get(executor);
+			if (serialExecutor == null) {
+				serialExecutor = ((ConnectionOrderedExecutor) executor).newSerialExecutor();
+				serialExecutors.put(executor, serialExecutor);
+			}
+			return serialExecutor;
+		}
+		return executor;
+	}
 
-			sendResponse(ctx, response);
+	private void process(final ChannelHandlerContext ctx, final RpcRequest request, final MethodInvoker invoker) {
+		logger.debug("Receive request:{},remoteAddress:{}", request.getRequestId(), ctx.channel().remoteAddress());
+		final RpcResponse response = new RpcResponse();
+		response.setRequestId(request.getRequestId());
+		final long processStartTime = System.currentTimeMillis();
+		try {
+			RpcContext.init(request);
+			Object result = invoker.invoke(request.getParameters());
+			if (result instanceof CompletionStage) {
+				// async service method, answer from whichever thread completes it and free this one
+				((CompletionStage<?>) result).whenComplete(new BiConsumer<Object, Throwable>() {
+					@Override
+					public void accept(Object value, Throwable cause) {
+						if (cause == null) {
+							response.setResult(value);
+						} else {
+							setError(request, response, cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause);
+						}
+						response.setProcessTime(System.currentTimeMillis() - processStartTime);
+						complete(ctx, response, invoker);
+					}
+				});
+				return;
+			}
+			response.setResult(result);
+		} catch (Exception e) {
+			setError(request, response, e);
 		} finally {
 			RpcContext.destroy();
 		}
+		response.setProcessTime(System.currentTimeMillis() - processStartTime);
+		complete(ctx, response, invoker);
+	}
+
+	/**
+	 * The bulkhead slot is held until the response is ready, async methods keep it while their future is pending.
+	 */
+	private void complete(ChannelHandlerContext ctx, RpcResponse response, MethodInvoker invoker) {
+		release(invoker);
+		sendResponse(ctx, response);
+	}
+
+	private static void release(MethodInvoker invoker) {
+		if (invoker.getBulkhead() != null) {
+			invoker.getBulkhead().release();
+		}
+	}
+
+	/**
+	 * Only the overloaded flag is read by the consumer, which is free to send the request to another provider.
+	 */
+	private void sendOverloaded(ChannelHandlerContext ctx, RpcRequest request) {
+		RpcResponse response = new RpcResponse();
+		response.setRequestId(request.getRequestId());
+		response.setOverloaded(true);
+		sendResponse(ctx, response);
+	}
+
+	private static void setError(RpcRequest request, RpcResponse response, Throwable cause) {
+		response.setError(new MyRpcServerRpcException("RPC Server handle request error request:" + NettyAcceptorHandler.toString(request), cause));
+
+		logger.error("RPC Server handle request error request:" + NettyAcceptorHandler.toString(request), cause);
 	}
 
 	public static String toString(RpcRequest request) {
 		return "requestId=" + request.getRequestId() + " interface=" + request.getInterfaceName() + " method=" + request.getMethodName();
 	}
 
-	private void sendResponse(ChannelHandlerContext ctx, RpcResponse response) {
-		ctx.writeAndFlush(response).addListener(new GenericFutureListener() {
-			@Override
-			public void operationComplete(Future future) throws Exception {
-				logger.debug("Send response for request:{}", response.getRequestId());
+	/**
+	 * Find the invoker by the negotiated ids, or by the full signature for requests sent before the handshake.
+	 */
+	private MethodInvoker resolve(RpcRequest request) {
+		MethodInvoker invoker;
+		if (request.getInterfaceName() == null) {
+			invoker = nettyRpcInstanceFactory.getInvoker(request.getServiceId(), request.getMethodId());
+			if (invoker == null) {
+				throw new MyRpcRpcException("Unknown service id " + request.getServiceId() + " or method id " + request.getMethodId());
+			}
+			request.setInterfaceName(invoker.getInterfaceName());
+			request.setMethodName(invoker.getMethod().getName());
+			request.setParameterTypes(invoker.getMethod().getParameterTypes());
+		} else {
+			invoker = nettyRpcInstanceFactory
+					.getInvoker(ReflectUtils.getMethodKey(request.getInterfaceName(), request.getMethodName(), request.getParameterTypes()));
+			if (invoker == null) {
+				throw new MyRpcRpcException("No provider method found for request:" + NettyAcceptorHandler.toString(request));
 			}
-		});
+		}
+		return invoker;
 	}
 
-	private Object handle(RpcRequest request) throws Exception {
-		String className = request.getInterfaceName();
-		Object serviceBean = nettyRpcInstanceFactory.getInstance(className);
-
-		Class<?> serviceClass = serviceBean.getClass();
-		String methodName = request.getMethodName();
-		Class<?>[] parameterTypes = request.getParameterTypes();
-		Object[] parameters = request.getParameters();
+	private void sendResponse(ChannelHandlerContext ctx, RpcResponse response) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Send response for request:{}", response.getRequestId());
+		}
+		writeQueue.enqueue(response);
+		requestDone(ctx);
+	}
 
-		// JDK reflect
-        /*Method method = serviceClass.getMethod(methodName, parameterTypes);
-        method.setAccessible(true);
-        return method.invoke(serviceBean, parameters);*/
+	private void requestDone(final ChannelHandlerContext ctx) {
+		if (inFlight.decrementAndGet() == readBacklog / 2) {
+			ctx.channel().eventLoop().execute(new Runnable() {
+				@Override
+				public void run() {
+					updateAutoRead(ctx);
+				}
+			});
+		}
+	}
 
-		// Cglib reflect
-		FastClass serviceFastClass = FastClass.create(serviceClass);
-		FastMethod serviceFastMethod = serviceFastClass.getMethod(methodName, parameterTypes);
-		return serviceFastMethod.invoke(serviceBean, parameters);
+	/**
+	 * Stop reading a connection whose requests pile up or whose responses the consumer does not read, netty then
+	 * leaves new requests in the socket and tcp flow control slows the consumer down. Event loop only.
+	 */
+	private void updateAutoRead(ChannelHandlerContext ctx) {
+		ChannelConfig config = ctx.channel().config();
+		if (config.isAutoRead()) {
+			if (inFlight.get() >= readBacklog || !ctx.channel().isWritable()) {
+				config.setAutoRead(false);
+				readPauses.inc();
+			}
+		} else if (inFlight.get() <= readBacklog / 2 && ctx.channel().isWritable()) {
+			config.setAutoRead(true);
+		}
 	}
 
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		writeQueue.writabilityChanged();
+		updateAutoRead(ctx);
+		ctx.fireChannelWritabilityChanged();
+	}
 
 	@Override
 	public void channelActive(ChannelHandlerContext ctx) throws Exception {
@@ -115,6 +277,11 @@ public class NettyAcceptorHandler extends SimpleChannelInboundHandler<RpcRequest
 
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		if (cause instanceof EncoderException) {
+			// not even the error response standing in for one that could not be serialized, the connection is still fine
+			logger.error("Server failed to encode response: remote={} event={}", ctx.channel().remoteAddress(), cause.getMessage(), cause);
+			return;
+		}
 		logger.error("Server exceptionCaught: remote={} local={} event={}", ctx.channel().remoteAddress(), ctx.channel().localAddress(),
 				cause.getMessage(), cause);
 		ctx.channel().close();
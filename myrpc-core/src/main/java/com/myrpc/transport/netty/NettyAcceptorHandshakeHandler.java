@@ -0,0 +1,63 @@
+package com.myrpc.transport.netty;
+
+import com.myrpc.compress.CompressType;
+import com.myrpc.model.Handshake;
+import com.myrpc.rpc.InstanceFactory;
+import com.myrpc.serialize.MessageEncoder;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Answers a consumer handshake with the id dictionary of the published services and the compression of the connection, the
+ * first codec the consumer offers that this side accepts.
+ */
+@ChannelHandler.Sharable
+public class NettyAcceptorHandshakeHandler extends SimpleChannelInboundHandler<Handshake> {
+
+	private static final Logger logger = LoggerFactory.getLogger(NettyAcceptorHandshakeHandler.class);
+	private InstanceFactory instanceFactory;
+	private List<CompressType> compressions;
+	private int compressThreshold;
+
+	public NettyAcceptorHandshakeHandler(InstanceFactory instanceFactory, List<CompressType> compressions, int compressThreshold) {
+		this.instanceFactory = instanceFactory;
+		this.compressions = compressions;
+		this.compressThreshold = compressThreshold;
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, Handshake handshake) {
+		logger.debug("Receive handshake,remoteAddress:{}", ctx.channel().remoteAddress());
+		CompressType compressType = select(handshake.getCompressions());
+		if (compressType == null) {
+			ctx.writeAndFlush(instanceFactory.getDictionary());
+			return;
+		}
+		Handshake dictionary = instanceFactory.getDictionary();
+		Handshake reply = new Handshake();
+		reply.setServices(dictionary.getServices());
+		reply.setMethods(dictionary.getMethods());
+		reply.setCompression(compressType.getName());
+		ctx.writeAndFlush(reply);
+		ctx.pipeline().get(MessageEncoder.class).compress(compressType, compressThreshold);
+		logger.debug("Compress with {} to {}", compressType.getName(), ctx.channel().remoteAddress());
+	}
+
+	private CompressType select(List<String> offered) {
+		if (offered == null) {
+			return null;
+		}
+		for (String name : offered) {
+			CompressType compressType = CompressType.parse(name);
+			if (compressType != null && compressions.contains(compressType)) {
+				return compressType;
+			}
+		}
+		return null;
+	}
+}
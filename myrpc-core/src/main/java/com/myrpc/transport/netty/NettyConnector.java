@@ -2,15 +2,21 @@ package com.myrpc.transport.netty;
 
 import com.myrpc.common.NetUtils;
 import com.myrpc.common.RpcConstants;
+import com.myrpc.compress.CompressType;
+import com.myrpc.compress.FrameCompressor;
+import com.myrpc.consumer.future.InvokeFuture;
 import com.myrpc.exception.MyRpcRemotingException;
 import com.myrpc.extension.ExtensionLoader;
 import com.myrpc.extension.RpcComponent;
 import com.myrpc.extension.Scope;
+import com.myrpc.model.Handshake;
 import com.myrpc.model.RpcRequest;
 import com.myrpc.model.RpcResponse;
 import com.myrpc.serialize.MessageDecoder;
 import com.myrpc.serialize.MessageEncoder;
 import com.myrpc.serialize.Serialize;
+import com.myrpc.exception.MyRpcSerializeException;
+import com.myrpc.serialize.SerializeType;
 import com.myrpc.transport.AbstractConnector;
 import com.myrpc.transport.Connector;
 import io.netty.bootstrap.Bootstrap;
@@ -19,34 +25,59 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 @RpcComponent(name = "netty")
 public class NettyConnector extends AbstractConnector {
 
 	private static final Logger logger = LoggerFactory.getLogger(NettyConnector.class);
-	private static final NioEventLoopGroup nioEventLoopGroup = new NioEventLoopGroup(RpcConstants.DEFAULT_IOTHREADS,
-			new DefaultThreadFactory("NettyClientBoss", true));
+	// all connectors of an io engine share its event loops, created on first use, a loop serves many shared connections
+	private static final EventLoopGroup[] eventLoopGroups = new EventLoopGroup[NettyIoEngine.values().length];
 
 	private Bootstrap bootstrap;
 	private volatile Channel channel;
-	private Serialize serialize;
-	private NettyConnectorHandler nettyConnectorHandler;
+	private SerializeType serializeType;
+	private NettyIoEngine ioEngine;
+	private List<CompressType> compressions;
+	private List<String> compressionNames;
+	private volatile NettyConnectorHandler nettyConnectorHandler;
+	private volatile Handshake dictionary;
+	// a lock rather than a monitor, so callers on virtual threads unmount while another one connects
+	private final ReentrantLock connectLock = new ReentrantLock();
 
 
 	@Override
 	public Connector init() {
 
-		this.serialize = ExtensionLoader.getExtensionLoader(Serialize.class)
-				.getExtension(url.getParameter(RpcConstants.SERIALIZATION_KEY), Scope.SINGLETON);
-
-		this.nettyConnectorHandler = new NettyConnectorHandler();
+		this.serializeType = SerializeType.parse(url.getParameter(RpcConstants.SERIALIZATION_KEY));
+		if (serializeType == null) {
+			throw new MyRpcSerializeException("Unsupported serialization " + url.getParameter(RpcConstants.SERIALIZATION_KEY));
+		}
+		this.ioEngine = NettyIoEngine.select(url.getParameter(RpcConstants.IOENGINE_KEY, RpcConstants.DEFAULT_IOENGINE));
+		this.compressions = CompressType.parseList(url.getParameter(RpcConstants.COMPRESSION_KEY));
+		// a codec whose library is missing fails here rather than on the first connection
+		ExtensionLoader.getExtension(Serialize.class, serializeType.getName(), Scope.SINGLETON);
+		this.compressionNames = new ArrayList<>(compressions.size());
+		for (CompressType compressType : compressions) {
+			FrameCompressor.get(compressType);
+			compressionNames.add(compressType.getName());
+		}
 
 		return this;
 	}
@@ -68,7 +99,16 @@ public class NettyConnector extends AbstractConnector {
 	}
 
 	@Override
-	public synchronized void connect() {
+	public void connect() {
+		connectLock.lock();
+		try {
+			doConnect();
+		} finally {
+			connectLock.unlock();
+		}
+	}
+
+	private void doConnect() {
 		if (isConnected()) {
 			return;
 		}
@@ -77,21 +117,28 @@ public class NettyConnector extends AbstractConnector {
 		bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
 		bootstrap.option(ChannelOption.TCP_NODELAY, true);
 		bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
-		bootstrap.group(nioEventLoopGroup).channel(NioSocketChannel.class).handler(new ChannelInitializer<NioSocketChannel>() {
+		if (ioEngine == NettyIoEngine.EPOLL) {
+			bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED).option(EpollChannelOption.TCP_QUICKACK, Boolean.TRUE);
+		}
+		bootstrap.group(eventLoopGroup(ioEngine)).channel(ioEngine.channelClass()).handler(new ChannelInitializer<SocketChannel>() {
 			@Override
-			protected void initChannel(NioSocketChannel ch) {
-				ch.pipeline().addLast("decoder", new MessageDecoder(serialize, RpcResponse.class))
-						.addLast("encoder", new MessageEncoder(serialize, RpcRequest.class)).addLast("handler", nettyConnectorHandler);
+			protected void initChannel(SocketChannel ch) {
+				ch.pipeline().addLast("decoder", new MessageDecoder(RpcResponse.class))
+						.addLast("encoder", new MessageEncoder(serializeType)).addLast("handshake", new NettyConnectorHandshakeHandler(compressionNames))
+						.addLast("handler", new NettyConnectorHandler(url.getIntParameter(RpcConstants.WRITEBATCH_KEY, RpcConstants.DEFAULT_WRITEBATCH),
+								url.getIntParameter(RpcConstants.WRITEBATCHBYTES_KEY, RpcConstants.DEFAULT_WRITEBATCHBYTES),
+								url.getIntParameter(RpcConstants.WRITEBACKLOG_KEY, RpcConstants.DEFAULT_WRITEBACKLOG)));
 			}
 		});
 
 		long start = System.currentTimeMillis();
 		ChannelFuture future = bootstrap.connect(getConnectAddress());
 		try {
-			boolean ret = future.awaitUninterruptibly(url.getIntParameter(RpcConstants.CONNECTTIMEOUT_KEY), TimeUnit.MILLISECONDS);
+			boolean ret = await(future, url.getIntParameter(RpcConstants.CONNECTTIMEOUT_KEY));
 
 			if (ret && future.isSuccess()) {
 				Channel newChannel = future.channel();
+				handshake(newChannel);
 				try {
 					// Close old channel
 					Channel oldChannel = NettyConnector.this.channel; // copy reference
@@ -113,6 +160,7 @@ public class NettyConnector extends AbstractConnector {
 							//NettyChannel.removeChannelIfDisconnected(newChannel);
 						}
 					} else {
+						NettyConnector.this.nettyConnectorHandler = newChannel.pipeline().get(NettyConnectorHandler.class);
 						NettyConnector.this.channel = newChannel;
 					}
 				}
@@ -133,16 +181,118 @@ public class NettyConnector extends AbstractConnector {
 		}
 	}
 
+	private static EventLoopGroup eventLoopGroup(NettyIoEngine ioEngine) {
+		synchronized (eventLoopGroups) {
+			EventLoopGroup eventLoopGroup = eventLoopGroups[ioEngine.ordinal()];
+			if (eventLoopGroup == null) {
+				eventLoopGroup = ioEngine.newEventLoopGroup(RpcConstants.DEFAULT_CLIENT_IOTHREADS, new DefaultThreadFactory("NettyClientBoss", true));
+				eventLoopGroups[ioEngine.ordinal()] = eventLoopGroup;
+			}
+			return eventLoopGroup;
+		}
+	}
+
+	/**
+	 * Ask the provider for its service and method ids, requests fall back to full names if it does not answer in time.
+	 */
+	private void handshake(Channel newChannel) {
+		NettyConnectorHandshakeHandler handshakeHandler = newChannel.pipeline().get(NettyConnectorHandshakeHandler.class);
+		Future<Handshake> handshakeFuture = handshakeHandler.handshake(newChannel);
+		if (await(handshakeFuture, url.getIntParameter(RpcConstants.CONNECTTIMEOUT_KEY)) && handshakeFuture.isSuccess()) {
+			this.dictionary = handshakeFuture.getNow();
+			CompressType compressType = CompressType.parse(dictionary.getCompression());
+			if (compressType != null && compressions.contains(compressType)) {
+				newChannel.pipeline().get(MessageEncoder.class).compress(compressType,
+						url.getIntParameter(RpcConstants.COMPRESSTHRESHOLD_KEY, RpcConstants.DEFAULT_COMPRESSTHRESHOLD));
+				logger.info("Compress with " + compressType.getName() + " to server " + getConnectAddress());
+			}
+		} else {
+			logger.warn("Handshake with server " + getConnectAddress() + " failed, requests will carry full method names");
+			this.dictionary = null;
+		}
+	}
+
+	/**
+	 * Waits on a netty future without its monitor based await, which would pin a virtual thread to its carrier.
+	 */
+	private static boolean await(Future<?> future, long timeoutMillis) {
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		future.addListener(new GenericFutureListener<Future<Object>>() {
+			@Override
+			public void operationComplete(Future<Object> f) {
+				done.complete(null);
+			}
+		});
+		boolean interrupted = false;
+		try {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			while (true) {
+				try {
+					done.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					return true;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					return true;
+				} catch (TimeoutException e) {
+					return false;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	@Override
-	public synchronized void disConnect() {
-		if (isConnected()) {
-			channel.close();
+	public void disConnect() {
+		connectLock.lock();
+		try {
+			if (isConnected()) {
+				channel.close();
+			}
+		} finally {
+			connectLock.unlock();
 		}
 	}
 
 	@Override
-	public void request(RpcRequest request) {
-		//nettyClientHandler.sendRequest(request);
-		channel.writeAndFlush(request);
+	public int getPending() {
+		NettyConnectorHandler handler = this.nettyConnectorHandler;
+		return handler == null ? 0 : handler.pendingFutures().size();
+	}
+
+	@Override
+	public <T> InvokeFuture<T> request(RpcRequest request, Class<T> returnType) {
+		NettyConnectorHandler handler = this.nettyConnectorHandler;
+		// the connection is shared by references with different timeouts, the dispatcher sets the caller's one on the request
+		int timeout = request.getTimeout() > 0 ? request.getTimeout() : url.getIntParameter(RpcConstants.TIMEOUT_KEY, 0);
+		if (request.getDeadline() != 0) {
+			// what is left of the caller's deadline, a retry gets less than the first attempt
+			int remaining = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(request.getDeadline() - System.nanoTime()));
+			timeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+		}
+		// the provider drops the request once this budget is spent, nobody waits for the answer anymore
+		request.setTimeout(timeout);
+		InvokeFuture<T> future = handler.newFuture(request, returnType, timeout);
+		Handshake dictionary = this.dictionary;
+		if (dictionary != null && request.getMethodKey() != null) {
+			Integer serviceId = dictionary.getServices().get(request.getInterfaceName());
+			Integer methodId = dictionary.getMethods().get(request.getMethodKey());
+			if (serviceId != null && methodId != null) {
+				RpcRequest compactRequest = new RpcRequest();
+				compactRequest.setRequestId(request.getRequestId());
+				compactRequest.setServiceId(serviceId);
+				compactRequest.setMethodId(methodId);
+				compactRequest.setParameters(request.getParameters());
+				compactRequest.setTimeout(request.getTimeout());
+				compactRequest.setDeclaredParameterTypes(request.getParameterTypes());
+				handler.sendRequest(compactRequest);
+				return future;
+			}
+		}
+		handler.sendRequest(request);
+		return future;
 	}
 }
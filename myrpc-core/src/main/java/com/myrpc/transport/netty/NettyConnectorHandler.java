@@ -1,19 +1,44 @@
 package com.myrpc.transport.netty;
 
 import com.myrpc.consumer.future.DefaultInvokeFuture;
+import com.myrpc.consumer.future.InvokeFuture;
+import com.myrpc.consumer.future.PendingFutures;
+import com.myrpc.exception.MyRpcEncodeException;
+import com.myrpc.exception.MyRpcOverloadException;
+import com.myrpc.exception.MyRpcRemotingException;
 import com.myrpc.model.RpcRequest;
 import com.myrpc.model.RpcResponse;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.EncoderException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@io.netty.channel.ChannelHandler.Sharable
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One handler per channel, it owns the request id sequence and the pending futures of that connection.
+ */
 public class NettyConnectorHandler extends SimpleChannelInboundHandler<RpcResponse> {
 
 	private static final Logger logger = LoggerFactory.getLogger(NettyConnectorHandler.class);
+	private final AtomicLong requestIdGenerator = new AtomicLong();
+	private final PendingFutures pendingFutures = new PendingFutures();
+	private final int writeBatch;
+	private final int writeBatchBytes;
+	private final int writeBacklog;
 	private Channel channel;
+	private NettyWriteQueue writeQueue;
+
+	/**
+	 * @param writeBacklog requests queued while the connection is not writable before new ones fail fast
+	 */
+	public NettyConnectorHandler(int writeBatch, int writeBatchBytes, int writeBacklog) {
+		this.writeBatch = writeBatch;
+		this.writeBatchBytes = writeBatchBytes;
+		this.writeBacklog = writeBacklog;
+	}
 
 	@Override
 	public void channelActive(ChannelHandlerContext ctx) throws Exception {
@@ -25,22 +50,71 @@ public class NettyConnectorHandler extends SimpleChannelInboundHandler<RpcRespon
 	public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
 		super.channelRegistered(ctx);
 		this.channel = ctx.channel();
+		// registered before the connect future completes, so it is in place for the first request
+		this.writeQueue = new NettyWriteQueue(channel, writeBatch, writeBatchBytes, writeBacklog, "transport.client.write");
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		if (pendingFutures.size() > 0) {
+			pendingFutures.failAll(new MyRpcRemotingException("Connection to " + ctx.channel().remoteAddress() + " closed"));
+		}
+		super.channelInactive(ctx);
 	}
 
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		writeQueue.writabilityChanged();
+		super.channelWritabilityChanged(ctx);
+	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, RpcResponse response) {
-		DefaultInvokeFuture.received(response);
+		pendingFutures.received(response);
 	}
 
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+		if (cause instanceof EncoderException) {
+			// one request that can not be serialized, the connection is still fine
+			logger.error("Client failed to encode request: remote={} event={}", ctx.channel().remoteAddress(), cause.getMessage(), cause);
+			if (cause.getCause() instanceof MyRpcEncodeException) {
+				MyRpcEncodeException encodeException = (MyRpcEncodeException) cause.getCause();
+				DefaultInvokeFuture<?> future = pendingFutures.remove(encodeException.getRequestId());
+				if (future != null) {
+					future.setFailure(encodeException);
+				}
+			}
+			return;
+		}
 		logger.error("Client exceptionCaught: remote={} local={} event={}", ctx.channel().remoteAddress(), ctx.channel().localAddress(),
 				cause.getMessage(), cause);
 		ctx.close();
 	}
 
+	/**
+	 * Register a future for the request under a fresh id of this connection, the caller sends it afterwards.
+	 */
+	public <T> InvokeFuture<T> newFuture(RpcRequest request, Class<T> returnType, long timeoutMillis) {
+		request.setRequestId(requestIdGenerator.incrementAndGet());
+		return new DefaultInvokeFuture<T>(request, pendingFutures, timeoutMillis).with(returnType);
+	}
+
+	/**
+	 * A request the backlog has no room for is failed at once, it never left this process so another provider can take it.
+	 */
 	public void sendRequest(RpcRequest request) {
-		channel.writeAndFlush(request);
+		if (!writeQueue.enqueue(request)) {
+			DefaultInvokeFuture<?> future = pendingFutures.remove(request.getRequestId());
+			if (future != null) {
+				future.setFailure(new MyRpcOverloadException(
+						"Write backlog to " + channel.remoteAddress() + " is full (" + writeBacklog + " requests), request " + request
+								.getRequestId() + " not sent"));
+			}
+		}
+	}
+
+	public PendingFutures pendingFutures() {
+		return pendingFutures;
 	}
 }
@@ -0,0 +1,49 @@
+package com.myrpc.transport.netty;
+
+import com.myrpc.model.Handshake;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+
+/**
+ * Per channel handler which offers the codecs this side accepts and waits for the provider's id dictionary.
+ */
+public class NettyConnectorHandshakeHandler extends SimpleChannelInboundHandler<Handshake> {
+
+	private final List<String> compressions;
+	private volatile Promise<Handshake> promise;
+
+	public NettyConnectorHandshakeHandler(List<String> compressions) {
+		this.compressions = compressions;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.promise = ctx.executor().newPromise();
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, Handshake dictionary) {
+		promise.trySuccess(dictionary);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		promise.tryFailure(new ClosedChannelException());
+		ctx.fireChannelInactive();
+	}
+
+	public Future<Handshake> handshake(Channel channel) {
+		Handshake handshake = new Handshake();
+		if (!compressions.isEmpty()) {
+			handshake.setCompressions(compressions);
+		}
+		channel.writeAndFlush(handshake);
+		return promise;
+	}
+}
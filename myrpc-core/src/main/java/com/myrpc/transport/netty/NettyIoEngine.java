@@ -0,0 +1,86 @@
+package com.myrpc.transport.netty;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The event loop and channel implementations used by acceptors and connectors. Native epoll saves the selector
+ * wakeups and garbage of nio and supports SO_REUSEPORT, it needs linux and the netty native library.
+ */
+public enum NettyIoEngine {
+
+	NIO {
+		@Override
+		public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+			return new NioEventLoopGroup(threads, threadFactory);
+		}
+
+		@Override
+		public Class<? extends ServerChannel> serverChannelClass() {
+			return NioServerSocketChannel.class;
+		}
+
+		@Override
+		public Class<? extends SocketChannel> channelClass() {
+			return NioSocketChannel.class;
+		}
+	},
+
+	EPOLL {
+		@Override
+		public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+			return new EpollEventLoopGroup(threads, threadFactory);
+		}
+
+		@Override
+		public Class<? extends ServerChannel> serverChannelClass() {
+			return EpollServerSocketChannel.class;
+		}
+
+		@Override
+		public Class<? extends SocketChannel> channelClass() {
+			return EpollSocketChannel.class;
+		}
+	};
+
+	private static final Logger logger = LoggerFactory.getLogger(NettyIoEngine.class);
+	private static final AtomicBoolean autoFallbackLogged = new AtomicBoolean();
+
+	public abstract EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory);
+
+	public abstract Class<? extends ServerChannel> serverChannelClass();
+
+	public abstract Class<? extends SocketChannel> channelClass();
+
+	/**
+	 * @param name "nio", "epoll" or "auto", auto and epoll fall back to nio where epoll is not available, epoll warns every
+	 *             time and auto tells once per process
+	 */
+	public static NettyIoEngine select(String name) {
+		if ("nio".equalsIgnoreCase(name)) {
+			return NIO;
+		}
+		if (Epoll.isAvailable()) {
+			return EPOLL;
+		}
+		if ("epoll".equalsIgnoreCase(name)) {
+			logger.warn("Native epoll is not available, falling back to nio", Epoll.unavailabilityCause());
+		} else if (autoFallbackLogged.compareAndSet(false, true)) {
+			logger.info("Native epoll is not available, using nio: {}", String.valueOf(Epoll.unavailabilityCause()));
+		}
+		return NIO;
+	}
+}
@@ -0,0 +1,120 @@
+package com.myrpc.transport.netty;
+
+import com.myrpc.metrics.Counter;
+import com.myrpc.metrics.MetricRegistry;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces writes from many threads into the event loop of one channel.
+ * Messages are written as they are drained and flushed once per drain, or earlier after
+ * {@code maxMessages} messages or {@code maxBytes} bytes written since the last flush, so a burst costs one syscall instead of one per message.
+ * Draining stops while the channel is not writable and resumes from {@link #writabilityChanged()}, messages wait here
+ * meanwhile, at most {@code maxPending} of them.
+ */
+public class NettyWriteQueue implements Runnable {
+
+	private final Channel channel;
+	private final int maxMessages;
+	private final long maxBytes;
+	private final int maxPending;
+	private final Queue<Object> queue = PlatformDependent.newMpscQueue();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Counter messages;
+	private final Counter flushes;
+	private final Counter bytes;
+	private final Counter rejected;
+
+	/**
+	 * @param maxPending messages waiting to be written before {@link #enqueue(Object)} refuses more, 0 for no limit
+	 * @param metricPrefix e.g. "transport.client.write", batch sizes are exported below it
+	 */
+	public NettyWriteQueue(Channel channel, int maxMessages, long maxBytes, int maxPending, String metricPrefix) {
+		this.channel = channel;
+		this.maxMessages = Math.max(1, maxMessages);
+		this.maxBytes = maxBytes <= 0 ? Long.MAX_VALUE : maxBytes;
+		this.maxPending = maxPending <= 0 ? Integer.MAX_VALUE : maxPending;
+		this.rejected = MetricRegistry.counter(metricPrefix + ".rejected");
+		this.messages = MetricRegistry.counter(metricPrefix + ".messages");
+		this.flushes = MetricRegistry.counter(metricPrefix + ".flushes");
+		this.bytes = MetricRegistry.counter(metricPrefix + ".bytes");
+		MetricRegistry.ratio(metricPrefix + ".batchsize.avg", messages, flushes);
+		MetricRegistry.ratio(metricPrefix + ".bytesperflush.avg", bytes, flushes);
+	}
+
+	/**
+	 * @return false if the backlog is full, the message was not queued
+	 */
+	public boolean enqueue(Object msg) {
+		if (pending.incrementAndGet() > maxPending) {
+			pending.decrementAndGet();
+			rejected.inc();
+			return false;
+		}
+		queue.offer(msg);
+		if (scheduled.compareAndSet(false, true)) {
+			channel.eventLoop().execute(this);
+		}
+		return true;
+	}
+
+	public int pending() {
+		return pending.get();
+	}
+
+	/**
+	 * Called on the event loop once the outbound buffer drained below its low water mark.
+	 */
+	public void writabilityChanged() {
+		if (channel.isWritable() && !queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			run();
+		}
+	}
+
+	@Override
+	public void run() {
+		int batch = 0;
+		long batchBytes = 0;
+		Object msg;
+		// a write past the high water mark makes the channel unwritable at once, the rest waits for it to drain
+		while (channel.isWritable() && (msg = queue.poll()) != null) {
+			pending.decrementAndGet();
+			// the outbound buffer also holds bytes of earlier flushes the socket did not take yet
+			long before = pendingBytes();
+			channel.write(msg, channel.voidPromise());
+			batchBytes += pendingBytes() - before;
+			if (++batch >= maxMessages || batchBytes >= maxBytes) {
+				flush(batch, batchBytes);
+				batch = 0;
+				batchBytes = 0;
+			}
+		}
+		if (batch > 0) {
+			flush(batch, batchBytes);
+		}
+
+		scheduled.set(false);
+		// a message offered after the last poll but before the flag was cleared
+		if (channel.isWritable() && !queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			channel.eventLoop().execute(this);
+		}
+	}
+
+	private void flush(int batch, long batchBytes) {
+		bytes.inc(batchBytes);
+		channel.flush();
+		messages.inc(batch);
+		flushes.inc();
+	}
+
+	private long pendingBytes() {
+		ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+		return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+	}
+}
@@ -0,0 +1,205 @@
+package com.myrpc.serialize.protostuff;
+
+import com.myrpc.common.ReflectUtils;
+import com.myrpc.common.RpcConstants;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.extension.Scope;
+import com.myrpc.model.Handshake;
+import com.myrpc.model.RpcRequest;
+import com.myrpc.rpc.InstanceFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RpcRequestSchemaTest {
+
+	private static final ProtostuffTypedSerialize serialize = new ProtostuffTypedSerialize();
+	private static Handshake dictionary;
+
+	@BeforeClass
+	public static void publish() {
+		InstanceFactory instanceFactory = ExtensionLoader.getExtension(InstanceFactory.class, RpcConstants.DEFAULT_TRANSPORTER,
+				Scope.SINGLETON);
+		// a field-less parameter type must not keep the service from being published
+		instanceFactory.setInstance(Shapes.class.getName(), new ShapesImpl());
+		dictionary = instanceFactory.getDictionary();
+	}
+
+	@Test
+	public void fullRequestKeepsNullsInTheMiddle() throws Exception {
+		RpcRequest request = fullRequest(method("describe"), new Object[] { null, new Point(1, 2), null, 7, Arrays.asList("a", "b") });
+
+		RpcRequest copy = roundTrip(request);
+
+		assertEquals(Shapes.class.getName(), copy.getInterfaceName());
+		assertEquals("describe", copy.getMethodName());
+		assertArrayEquals(request.getParameterTypes(), copy.getParameterTypes());
+		Object[] arguments = copy.getParameters();
+		assertEquals(5, arguments.length);
+		assertNull(arguments[0]);
+		assertPoint((Point) arguments[1], 1, 2);
+		assertNull(arguments[2]);
+		assertEquals(7, arguments[3]);
+		assertEquals(Arrays.asList("a", "b"), arguments[4]);
+	}
+
+	@Test
+	public void subclassKeepsItsType() throws Exception {
+		RpcRequest request = fullRequest(method("describe"), new Object[] { "label", new Point3d(1, 2, 3), 0.5d, -1, null });
+
+		Object[] arguments = roundTrip(request).getParameters();
+
+		assertEquals("label", arguments[0]);
+		assertSame(Point3d.class, arguments[1].getClass());
+		assertPoint((Point) arguments[1], 1, 2);
+		assertEquals(3, ((Point3d) arguments[1]).z);
+		assertEquals(0.5d, arguments[2]);
+		assertEquals(-1, arguments[3]);
+		assertNull(arguments[4]);
+	}
+
+	@Test
+	public void compactRequestIsReadByIds() throws Exception {
+		Method method = method("describe");
+		Object[] arguments = new Object[] { "label", new Point(3, 4), null, 9, new Point3d(5, 6, 7) };
+		RpcRequest full = fullRequest(method, arguments);
+		RpcRequest compact = compactRequest(method, arguments);
+
+		byte[] fullBytes = serialize.serialize(full);
+		byte[] compactBytes = serialize.serialize(compact);
+		assertTrue(compactBytes.length < fullBytes.length);
+
+		RpcRequest copy = serialize.deserialize(compactBytes, RpcRequest.class);
+		assertNull(copy.getInterfaceName());
+		assertNull(copy.getParameterTypes());
+		assertEquals(compact.getServiceId(), copy.getServiceId());
+		assertEquals(compact.getMethodId(), copy.getMethodId());
+		assertEquals(1000, copy.getTimeout());
+		assertEquals("label", copy.getParameters()[0]);
+		assertPoint((Point) copy.getParameters()[1], 3, 4);
+		assertNull(copy.getParameters()[2]);
+		assertEquals(9, copy.getParameters()[3]);
+		assertSame(Point3d.class, copy.getParameters()[4].getClass());
+		assertEquals(7, ((Point3d) copy.getParameters()[4]).z);
+	}
+
+	@Test
+	public void fieldLessParameterType() throws Exception {
+		Method method = method("clear");
+		RpcRequest copy = roundTrip(compactRequest(method, new Object[] { null, "all" }));
+
+		assertNull(copy.getParameters()[0]);
+		assertEquals("all", copy.getParameters()[1]);
+	}
+
+	@Test
+	public void requestWithoutArguments() throws Exception {
+		RpcRequest copy = roundTrip(fullRequest(method("count"), null));
+
+		assertEquals(0, copy.getParameterTypes().length);
+		assertNull(copy.getParameters());
+	}
+
+	private static RpcRequest roundTrip(RpcRequest request) {
+		return serialize.deserialize(serialize.serialize(request), RpcRequest.class);
+	}
+
+	private static RpcRequest fullRequest(Method method, Object[] arguments) {
+		RpcRequest request = new RpcRequest();
+		request.setInterfaceName(Shapes.class.getName());
+		request.setMethodName(method.getName());
+		request.setParameterTypes(method.getParameterTypes());
+		request.setParameters(arguments);
+		request.setTimeout(1000);
+		return request;
+	}
+
+	private static RpcRequest compactRequest(Method method, Object[] arguments) {
+		RpcRequest request = new RpcRequest();
+		request.setServiceId(dictionary.getServices().get(Shapes.class.getName()));
+		request.setMethodId(dictionary.getMethods().get(ReflectUtils.getMethodKey(Shapes.class.getName(), method)));
+		request.setDeclaredParameterTypes(method.getParameterTypes());
+		request.setParameters(arguments);
+		request.setTimeout(1000);
+		return request;
+	}
+
+	private static Method method(String name) {
+		for (Method method : Shapes.class.getMethods()) {
+			if (method.getName().equals(name)) {
+				return method;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	private static void assertPoint(Point point, int x, int y) {
+		assertEquals(x, point.x);
+		assertEquals(y, point.y);
+	}
+
+	public interface Shapes {
+
+		String describe(String label, Point point, Object hint, int count, Object extra);
+
+		void clear(Empty empty, String scope);
+
+		int count();
+	}
+
+	public static class ShapesImpl implements Shapes {
+
+		@Override
+		public String describe(String label, Point point, Object hint, int count, Object extra) {
+			return label;
+		}
+
+		@Override
+		public void clear(Empty empty, String scope) {
+		}
+
+		@Override
+		public int count() {
+			return 0;
+		}
+	}
+
+	public static class Point {
+
+		int x;
+		int y;
+
+		Point() {
+		}
+
+		Point(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	public static class Point3d extends Point {
+
+		int z;
+
+		Point3d() {
+		}
+
+		Point3d(int x, int y, int z) {
+			super(x, y);
+			this.z = z;
+		}
+	}
+
+	public static class Empty {
+	}
+}
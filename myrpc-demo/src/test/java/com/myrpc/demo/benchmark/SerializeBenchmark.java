@@ -0,0 +1,81 @@
+package com.myrpc.demo.benchmark;
+
+import com.myrpc.demo.api.DemoService;
+import com.myrpc.extension.ExtensionLoader;
+import com.myrpc.extension.Scope;
+import com.myrpc.model.RpcRequest;
+import com.myrpc.model.RpcResponse;
+import com.myrpc.serialize.Serialize;
+import com.myrpc.serialize.SerializeType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Encoded size and encode / decode time of a DemoService#sayHello request and its response with every serialization, the
+ * way the codec runs them: into and out of a pooled direct buffer. Run it with the serializations to compare as arguments,
+ * all of them by default.
+ */
+public class SerializeBenchmark {
+
+	private static final int ROUNDS = 10;
+	private static final int ITERATIONS = 100000;
+
+	public static void main(String[] args) throws Exception {
+		RpcRequest request = new RpcRequest();
+		request.setInterfaceName(DemoService.class.getName());
+		request.setMethodName("sayHello");
+		request.setParameterTypes(new Class<?>[] { String.class });
+		request.setParameters(new Object[] { "world" });
+		RpcResponse response = new RpcResponse();
+		response.setRequestId(1);
+		response.setResult("Hello world");
+
+		System.out.printf("%-18s %14s %12s %12s %14s %12s %12s%n", "serialization", "request bytes", "encode ns", "decode ns",
+				"response bytes", "encode ns", "decode ns");
+		String[] names = args;
+		if (names.length == 0) {
+			names = new String[SerializeType.values().length];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = SerializeType.values()[i].getName();
+			}
+		}
+		for (String name : names) {
+			Serialize serialize = ExtensionLoader.getExtension(Serialize.class, name, Scope.SINGLETON);
+			long[] requestResult = run(serialize, request, RpcRequest.class);
+			long[] responseResult = run(serialize, response, RpcResponse.class);
+			System.out.printf("%-18s %14d %12d %12d %14d %12d %12d%n", name, requestResult[0], requestResult[1], requestResult[2],
+					responseResult[0], responseResult[1], responseResult[2]);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Size, encode and decode ns per message of the last round, the rounds before let the jit settle.
+	 */
+	private static <T> long[] run(Serialize serialize, T message, Class<T> cls) {
+		ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+		try {
+			long encode = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				for (int i = 0; i < ITERATIONS; i++) {
+					buf.clear();
+					serialize.serialize(message, buf);
+				}
+				encode = (System.nanoTime() - start) / ITERATIONS;
+			}
+			int size = buf.readableBytes();
+			long decode = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				for (int i = 0; i < ITERATIONS; i++) {
+					serialize.deserialize(buf.slice(0, size), cls);
+				}
+				decode = (System.nanoTime() - start) / ITERATIONS;
+			}
+			return new long[] { size, encode, decode };
+		} finally {
+			buf.release();
+		}
+	}
+}